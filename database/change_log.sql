@@ -0,0 +1,9 @@
+-- Change log of the schedule, appended to by every transaction changing Appointment, Reservation, Booking or Groups.
+-- Clients remember the sequence of the last change they applied and only fetch the Appointments changed after it.
+-- Kind is APPOINTMENT (AppointmentDate set), GROUP (GroupNumber set) or SCHEDULE (reload everything).
+CREATE TABLE ChangeLog (
+    Sequence        BIGINT      NOT NULL IDENTITY(1, 1) PRIMARY KEY,
+    Kind            VARCHAR(20) NOT NULL,
+    AppointmentDate DATE        NULL,
+    GroupNumber     INT         NULL
+);
@@ -0,0 +1,3 @@
+-- An Appointment can only be reserved or booked by one group. Together with the primary key of Booking (one booking
+-- per group) this keeps racing bookings from both succeeding.
+CREATE UNIQUE INDEX UX_Reservation_Appointment ON Reservation (Appointment);
@@ -0,0 +1,5 @@
+-- Version of every Appointment and Booking row, checked and incremented by every update.
+-- An update of a row that changed since it was loaded affects no row and is rejected by the client.
+ALTER TABLE Appointment ADD Version INT NOT NULL CONSTRAINT DF_Appointment_Version DEFAULT 0;
+
+ALTER TABLE Booking ADD Version INT NOT NULL CONSTRAINT DF_Booking_Version DEFAULT 0;
@@ -0,0 +1,8 @@
+-- Change token of the schedule, incremented by every transaction changing Appointment, Reservation, Booking or Groups.
+-- Clients compare it with the version of their cached schedule before fetching the schedule again.
+CREATE TABLE ScheduleVersion (
+    Id      INT    NOT NULL PRIMARY KEY CHECK (Id = 1),
+    Version BIGINT NOT NULL
+);
+
+INSERT INTO ScheduleVersion (Id, Version) VALUES (1, 0);
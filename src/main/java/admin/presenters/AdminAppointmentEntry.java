@@ -1,27 +1,22 @@
 package admin.presenters;
 
 import javafx.event.ActionEvent;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.Node;
 import javafx.scene.Scene;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 import models.Appointment;
 import shared.presenters.AppointmentEntry;
-
-import java.io.IOException;
+import shared.presenters.EntryLayout;
 
 public class AdminAppointmentEntry extends AppointmentEntry {
 
-    @FXML
     Label daylabel;
 
-    @FXML
     Label notelabel;
 
-    @FXML
     Label statelabel;
 
     /**
@@ -32,15 +27,14 @@ public class AdminAppointmentEntry extends AppointmentEntry {
     public AdminAppointmentEntry(Appointment appointment) {
         super(appointment);
 
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/admin/views/AdminAppointmentEntry.fxml"));
-        fxmlLoader.setRoot(this);
-        fxmlLoader.setController(this);
+        EntryLayout.setUpRow(this, 1000.0, 15.0);
+
+        daylabel = EntryLayout.label("Day", 139.0);
+        Button editbutton = EntryLayout.button("Bearbeiten", 106.0, this::edit);
+        notelabel = EntryLayout.label("Comment", 289.0);
+        statelabel = EntryLayout.label("Frei", 325.0);
 
-        try {
-            fxmlLoader.load();
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
-        }
+        getChildren().addAll(daylabel, editbutton, notelabel, statelabel);
     }
 
     /**
@@ -1,6 +1,7 @@
 package admin.presenters;
 
 import models.Appointment;
+import models.GroupStatusIndex;
 import shared.presenters.Appointments;
 import shared.presenters.AppointmentEntry;
 
@@ -10,7 +11,7 @@ public class AdminAppointments extends Appointments {
     }
 
     @Override
-    protected AppointmentEntry createAppointmentEntry(Appointment appointment) {
+    protected AppointmentEntry createAppointmentEntry(Appointment appointment, GroupStatusIndex groupStatuses) {
         return new AdminAppointmentEntry(appointment);
     }
 }
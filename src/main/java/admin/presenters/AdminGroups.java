@@ -1,5 +1,7 @@
 package admin.presenters;
 
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventType;
@@ -9,6 +11,10 @@ import javafx.scene.control.Alert;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.VBox;
 import models.Group;
+import models.GroupStatusIndex;
+import repository.AsyncRepository;
+import shared.presenters.Loading;
+import shared.presenters.ScheduleModel;
 
 import java.io.IOException;
 
@@ -18,6 +24,8 @@ public class AdminGroups extends AnchorPane {
     @FXML
     VBox entries;
 
+    private ScheduleModel scheduleModel;
+
     /**
      * Loads the corresponding view
      */
@@ -34,54 +42,71 @@ public class AdminGroups extends AnchorPane {
     }
 
     /**
-     * Puts the Groups into the Group view
+     * Binds the view to the schedule it displays
+     *
+     * The view is repainted whenever the Groups of the model are replaced.
+     *
+     * @param scheduleModel the schedule model, shared with the other views of the window
      */
-    @FXML
-    public void initialize(){
-        showGroups();
+    public void setScheduleModel(ScheduleModel scheduleModel) {
+        this.scheduleModel = scheduleModel;
+
+        scheduleModel.getGroups().addListener((ListChangeListener<Group>) change ->
+                paintGroups(scheduleModel.getGroupStatuses()));
+        scheduleModel.loadingProperty().addListener((observable, wasLoading, loading) -> Loading.show(this, loading));
+
+        paintGroups(scheduleModel.getGroupStatuses());
     }
 
     /**
-     * Puts the Groups into the Group View
+     * Reloads the schedule, which repaints this and all other views bound to it
      */
     public void showGroups(){
-        try {
-            entries.getChildren().clear();
+        scheduleModel.refresh();
+    }
 
-            for (Group g: Group.all()) {
-                GroupEntry entry = new GroupEntry(g);
+    /**
+     * Replaces the entries of the Group View with the loaded Groups
+     * @param groupStatuses the Groups and their status
+     */
+    private void paintGroups(GroupStatusIndex groupStatuses){
+        entries.getChildren().clear();
 
-                entry.addEventHandler(GroupEntry.GROUP_DELETED, event -> {
-                    showGroups();
-                    fireEvent(new Event(GROUPS_UPDATED));
-                });
+        for (Group g: groupStatuses.getGroups()) {
+            GroupEntry entry = new GroupEntry(g, groupStatuses.getStatus(g));
 
-                entry.paint();
+            entry.addEventHandler(GroupEntry.GROUP_DELETED, event -> {
+                showGroups();
+                fireEvent(new Event(GROUPS_UPDATED));
+            });
 
-                entries.getChildren().add(entry);
-            }
-        } catch (Exception e){
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Fehler beim Anzeigen der Gruppen");
-            alert.showAndWait();
-            System.exit(1);
+            entry.paint();
 
+            entries.getChildren().add(entry);
         }
     }
 
     /**
      * Adds a new Group and reloads the view
+     *
+     * The view is enabled again as soon as the Group is created, as the refresh of the schedule only fetches
+     * the changes and does not report loading.
      * @param event The event that caused the method to be called
      */
     public void add(ActionEvent event){
-        try {
-            Group.create();
+        Loading.show(this, true);
+
+        AsyncRepository.supply(Group::create).whenCompleteAsync((group, error) -> {
+            if (error != null){
+                AsyncRepository.unwrap(error).printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Fehler beim Erstellen der Gruppe");
+                alert.showAndWait();
+                System.exit(1);
+                return;
+            }
+
+            Loading.show(this, false);
             showGroups();
-        } catch (Exception e){
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Fehler beim Erstellen der Gruppe");
-            alert.showAndWait();
-            System.exit(1);
-        }
+        }, Platform::runLater);
     }
 }
@@ -1,5 +1,6 @@
 package admin.presenters;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventType;
@@ -12,9 +13,13 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import models.Appointment;
+import models.AppointmentUnitOfWork;
 import models.Booking;
 import models.InvalidTimeWindowException;
 import models.TimeWindow;
+import repository.AsyncRepository;
+import repository.ConcurrentUpdateException;
+import shared.presenters.Loading;
 
 import java.io.IOException;
 import java.time.LocalTime;
@@ -141,8 +146,11 @@ public class EditDialog extends AnchorPane {
      * @param event the event causing the method to be called
      */
     public void save(ActionEvent event) {
+        final Appointment changed = appointment.copy();
+        final AppointmentUnitOfWork changes = new AppointmentUnitOfWork(changed);
+
         try {
-            final TimeWindow newTimeWindow = new TimeWindow(LocalTime.of(
+            final TimeWindow newTimeWindow = TimeWindow.of(LocalTime.of(
                     Integer.parseInt(patchTimeValue(startHour.getText())),
                     Integer.parseInt(patchTimeValue(startMinute.getText()))
             ), LocalTime.of(
@@ -151,11 +159,11 @@ public class EditDialog extends AnchorPane {
             ));
 
             if (!appointment.getTimeWindow().equals(newTimeWindow)) {
-                appointment.setTimeWindow(newTimeWindow);
+                changes.setTimeWindow(newTimeWindow);
             }
 
             if (!(appointment.getNote() == null ? "" : appointment.getNote()).equals(note.getText())) {
-                appointment.setNote(note.getText());
+                changes.setNote(note.getText());
             }
 
 
@@ -164,12 +172,12 @@ public class EditDialog extends AnchorPane {
                 TimeWindow newBookingTimeWindow;
 
                 if (bookingEndHour.getText().equals("") && bookingEndMinute.getText().equals("")) {
-                    newBookingTimeWindow = new TimeWindow(LocalTime.of(
+                    newBookingTimeWindow = TimeWindow.of(LocalTime.of(
                             Integer.parseInt(patchTimeValue(bookingStartHour.getText())),
                             Integer.parseInt(patchTimeValue(bookingStartMinute.getText()))
                     ));
                 } else {
-                    newBookingTimeWindow = new TimeWindow(LocalTime.of(
+                    newBookingTimeWindow = TimeWindow.of(LocalTime.of(
                             Integer.parseInt(patchTimeValue(bookingStartHour.getText())),
                             Integer.parseInt(patchTimeValue(bookingStartMinute.getText()))
                     ), LocalTime.of(
@@ -180,26 +188,105 @@ public class EditDialog extends AnchorPane {
 
 
                 if (!booking.getTimeWindow().equals(newBookingTimeWindow)) {
-                    booking.updateTimeWindow(newBookingTimeWindow);
+                    changes.setBookingTimeWindow(newBookingTimeWindow);
                 }
 
                 if (!(booking.getRoom() == null ? "" : booking.getRoom()).equals(bookingRoom.getText())) {
-                    booking.updateRoom(bookingRoom.getText());
+                    changes.setBookingRoom(bookingRoom.getText());
                 }
             }
-
-            fireEvent(new Event(APPOINTMENT_UPDATED));
-
-            ((Stage) ((Node) event.getSource()).getScene().getWindow()).close();
         } catch (InvalidTimeWindowException e) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Startzeit muss vor Endzeit liegen");
             alert.showAndWait();
+            return;
         } catch (Exception e) {
             e.printStackTrace();
             Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht aktualisiert werden");
             alert.showAndWait();
             System.exit(1);
+            return;
         }
+
+        updateInBackground(event, changed, changes::commit, true);
+    }
+
+    /**
+     * Runs an update of a copy of the Appointment in the background, then notifies the listeners
+     *
+     * The shown Appointment is shared with the schedule, so it only takes over the copy on the FX application thread
+     * once the update was written. A rejected update leaves it untouched.
+     *
+     * @param event       the event causing the update
+     * @param changed     the copy of the Appointment made by Appointment.copy(), which the update changes
+     * @param update      the update to run
+     * @param closeWindow true if the editor should be closed after the update, false if it should be reinitialized
+     */
+    private void updateInBackground(ActionEvent event, Appointment changed, AsyncRepository.RepositoryAction update,
+                                    boolean closeWindow) {
+        final Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        Loading.show(this, true);
+
+        AsyncRepository.run(update).whenCompleteAsync((result, error) -> {
+            Loading.show(this, false);
+
+            if (error != null && AsyncRepository.unwrap(error) instanceof ConcurrentUpdateException) {
+                Alert alert = new Alert(Alert.AlertType.WARNING,
+                        "Der Termin wurde zwischenzeitlich geändert und wird neu geladen");
+                alert.showAndWait();
+                reload(window);
+                return;
+            }
+
+            if (error != null) {
+                AsyncRepository.unwrap(error).printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht aktualisiert werden");
+                alert.showAndWait();
+                System.exit(1);
+                return;
+            }
+
+            appointment.takeOver(changed);
+            fireEvent(new Event(APPOINTMENT_UPDATED));
+
+            if (closeWindow) {
+                window.close();
+            } else {
+                initialize();
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Fetches the current state of the edited Appointment after an update was rejected because it was outdated,
+     * then shows it in the editor and notifies the listeners
+     *
+     * The editor is closed if the Appointment was deleted in the meantime.
+     *
+     * @param window the window of the editor
+     */
+    private void reload(Stage window) {
+        Loading.show(this, true);
+
+        AsyncRepository.supply(() -> Appointment.get(appointment.getDate())).whenCompleteAsync((current, error) -> {
+            Loading.show(this, false);
+
+            if (error != null) {
+                AsyncRepository.unwrap(error).printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht geladen werden");
+                alert.showAndWait();
+                System.exit(1);
+                return;
+            }
+
+            fireEvent(new Event(APPOINTMENT_UPDATED));
+
+            if (current.isPresent()) {
+                appointment = current.get();
+                initialize();
+            } else {
+                window.close();
+            }
+        }, Platform::runLater);
     }
 
     /**
@@ -217,22 +304,15 @@ public class EditDialog extends AnchorPane {
      * @param event the event causing the method to be called
      */
     public void toggleActivation(ActionEvent event) {
-        try {
-            if (appointment.getState() == Appointment.State.DEACTIVATED) {
-                appointment.setFree();
+        final Appointment changed = appointment.copy();
+
+        updateInBackground(event, changed, () -> {
+            if (changed.getState() == Appointment.State.DEACTIVATED) {
+                changed.setFree();
             } else {
-                appointment.deactivate();
+                changed.deactivate();
             }
-
-            fireEvent(new Event(APPOINTMENT_UPDATED));
-
-            ((Stage) ((Node) event.getSource()).getScene().getWindow()).close();
-        } catch (Exception e) {
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht aktualisiert werden");
-            alert.showAndWait();
-            System.exit(1);
-        }
+        }, true);
     }
 
     /**
@@ -241,19 +321,13 @@ public class EditDialog extends AnchorPane {
      * @param event the event causing the method to be called
      */
     public void setFree(ActionEvent event) {
-        try {
-            if (appointment.getState() == Appointment.State.BOOKED || appointment.getState() == Appointment.State.RESERVED) {
-                appointment.setFree();
-            }
-            fireEvent(new Event(APPOINTMENT_UPDATED));
+        final Appointment changed = appointment.copy();
 
-            initialize();
-        } catch (Exception e) {
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht aktualisiert werden");
-            alert.showAndWait();
-            System.exit(1);
-        }
+        updateInBackground(event, changed, () -> {
+            if (changed.getState() == Appointment.State.BOOKED || changed.getState() == Appointment.State.RESERVED) {
+                changed.setFree();
+            }
+        }, false);
     }
 
     private static String formatTimeValue(int timeValue) {
@@ -1,82 +1,93 @@
 package admin.presenters;
 
+import javafx.application.Platform;
 import javafx.event.Event;
 import javafx.event.EventType;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.scene.control.Alert;
+import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 import models.Group;
-
-import java.io.IOException;
+import models.GroupStatus;
+import repository.AsyncRepository;
+import shared.presenters.EntryLayout;
+import shared.presenters.Loading;
 
 public class GroupEntry extends HBox {
     public static final EventType<Event> GROUP_DELETED =
             new EventType<>("GROUP_DELETED");
     private Group group;
+    private GroupStatus status;
 
-    @FXML
     Label groupLabel;
 
-    @FXML
     Label statusLabel;
 
     /**
      * Creates a new Group entry for the specified Group
      * @param group The entry's Group
+     * @param status The Group's reservation and booking status
      */
-    public GroupEntry(Group group) {
+    public GroupEntry(Group group, GroupStatus status) {
         this.group = group;
+        this.status = status;
 
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/admin/views/GroupEntry.fxml"));
-        fxmlLoader.setRoot(this);
-        fxmlLoader.setController(this);
+        EntryLayout.setUpRow(this, 925.0, 0);
 
-        try {
-            fxmlLoader.load();
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
-        }
+        groupLabel = EntryLayout.label("Gruppe i", 150.0);
+        Button deleteButton = EntryLayout.button("Löschen", Region.USE_COMPUTED_SIZE, event -> delete());
+        statusLabel = EntryLayout.label("Nicht gebucht", Region.USE_COMPUTED_SIZE);
+
+        getChildren().addAll(groupLabel, deleteButton, statusLabel);
     }
 
     /**
      * Displays the Groups name and booking status
      */
     public void paint(){
-        try {
-            groupLabel.setText(group.toString());
+        groupLabel.setText(group.toString());
 
-            boolean hasReservation = group.hasReservation();
-            boolean hasBooking = group.hasBooking();
-
-            String statusText = hasBooking ? "Gebucht" : hasReservation ? "Reserviert" : "Nicht gebucht";
-            Color color = hasBooking ? Color.MEDIUMSEAGREEN : hasReservation ? Color.DARKGOLDENROD : Color.DARKORANGE;
+        statusLabel.setText(status.toString());
+        statusLabel.setTextFill(getStatusColor());
+    }
 
-            statusLabel.setText(statusText);
-            statusLabel.setTextFill(color);
-        } catch (Exception e){
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Fehler beim Anzeigen der Gruppen");
-            alert.showAndWait();
-            System.exit(1);
+    /**
+     * Returns the Color for the status label
+     *
+     * @return medium sea green for booked groups, dark goldenrod for reserved and dark orange for all others
+     */
+    private Color getStatusColor(){
+        switch (status){
+            case BOOKED:
+                return Color.MEDIUMSEAGREEN;
+            case RESERVED:
+                return Color.DARKGOLDENROD;
+            case NONE:
+                return Color.DARKORANGE;
         }
+        return Color.BLACK; //Never reached, but else return statement is missing
     }
 
     /**
      * Deletes the Group and fires the event to reload the View
      */
     public void delete(){
-        try {
-            Group.delete(group);
-            fireEvent(new Event(GROUP_DELETED));
-        } catch (Exception e){
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Fehler beim Löschen der Gruppe");
-            alert.showAndWait();
-            System.exit(1);
+        Loading.show(this, true);
 
-        }
+        AsyncRepository.run(() -> Group.delete(group)).whenCompleteAsync((result, error) -> {
+            Loading.show(this, false);
+
+            if (error != null){
+                AsyncRepository.unwrap(error).printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Fehler beim Löschen der Gruppe");
+                alert.showAndWait();
+                System.exit(1);
+                return;
+            }
+
+            fireEvent(new Event(GROUP_DELETED));
+        }, Platform::runLater);
     }
 }
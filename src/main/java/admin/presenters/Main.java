@@ -8,7 +8,7 @@ import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.MenuBar;
 import javafx.stage.Stage;
-import shared.presenters.Appointments;
+import shared.presenters.ScheduleModel;
 
 import java.io.IOException;
 
@@ -23,12 +23,18 @@ public class Main {
     AdminGroups groupView;
 
     /**
-     * Adds event handlers to updates of the Groups and Appointments updating the other view
+     * Binds the Appointment and Group views to one shared schedule and loads it
+     *
+     * A change in either view refreshes the shared schedule once, which updates both views.
      */
     @FXML
     public void initialize(){
-        appointmentsView.addEventHandler(Appointments.APPOINTMENTS_UPDATED, event -> groupView.showGroups());
-        groupView.addEventHandler(AdminGroups.GROUPS_UPDATED, event -> appointmentsView.showAppointments());
+        ScheduleModel scheduleModel = new ScheduleModel();
+
+        appointmentsView.setScheduleModel(scheduleModel);
+        groupView.setScheduleModel(scheduleModel);
+
+        scheduleModel.refresh();
     }
 
     /**
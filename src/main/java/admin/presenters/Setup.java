@@ -1,5 +1,6 @@
 package admin.presenters;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
@@ -13,6 +14,8 @@ import javafx.stage.Stage;
 import models.Appointment;
 import models.Group;
 import models.InvalidAppointmentStateException;
+import repository.AsyncRepository;
+import shared.presenters.Loading;
 
 import java.io.IOException;
 import java.time.LocalDate;
@@ -29,38 +32,65 @@ public class Setup {
      * @param event the event causing the method to be called
      */
     public void generate(ActionEvent event){
+        final LocalDate startDate = startDatePicker.getValue();
+        final int groupCount;
+
         try {
-            LocalDate startDate = startDatePicker.getValue();
-            int groupCount = Integer.parseInt(groupsField.getText());
+            groupCount = Integer.parseInt(groupsField.getText());
+        }
+        catch (IllegalArgumentException e){
+            Alert alert = new Alert(Alert.AlertType.ERROR, "Anzahl Gruppen muss mindestens 1 sein");
+            alert.showAndWait();
+            return;
+        }
 
+        final Stage window = (Stage) ((Node)event.getSource()).getScene().getWindow();
+        final Parent setupView = window.getScene().getRoot();
+        Loading.show(setupView, true);
+
+        AsyncRepository.run(() -> {
             Appointment.generate(startDate);
             Group.generate(groupCount);
+        }).whenCompleteAsync((result, error) -> {
+            Loading.show(setupView, false);
 
-            Parent adminViewParent = FXMLLoader.load(getClass().getResource("/admin/views/Main.fxml"));
+            if (error != null) {
+                showGenerationError(AsyncRepository.unwrap(error));
+                return;
+            }
 
-            Scene adminScene = new Scene(adminViewParent);
+            try {
+                Parent adminViewParent = FXMLLoader.load(getClass().getResource("/admin/views/Main.fxml"));
 
-            Stage window = (Stage) ((Node)event.getSource()).getScene().getWindow();
+                Scene adminScene = new Scene(adminViewParent);
 
-            window.setScene(adminScene);
-            window.show();
-        }
-        catch (IOException e) {
-            e.printStackTrace();
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Administratoransicht konnte nicht geladen werden");
-            alert.showAndWait();
-            System.exit(1);
-        }
-        catch (InvalidAppointmentStateException e) {
+                window.setScene(adminScene);
+                window.show();
+            }
+            catch (IOException e) {
+                e.printStackTrace();
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Administratoransicht konnte nicht geladen werden");
+                alert.showAndWait();
+                System.exit(1);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Shows the error that occurred while generating the Appointments and Groups
+     * @param error the exception thrown by the generation
+     */
+    private void showGenerationError(Throwable error){
+        if (error instanceof InvalidAppointmentStateException) {
             Alert alert = new Alert(Alert.AlertType.ERROR, "Startdatum muss ein Montag sein");
             alert.showAndWait();
         }
-        catch (IllegalArgumentException e){
+        else if (error instanceof IllegalArgumentException){
             Alert alert = new Alert(Alert.AlertType.ERROR, "Anzahl Gruppen muss mindestens 1 sein");
             alert.showAndWait();
         }
-        catch (Exception e) {
-            e.printStackTrace();
+        else {
+            error.printStackTrace();
             Alert alert = new Alert(Alert.AlertType.ERROR, "Verbindung zur Datenbank fehlgeschlagen");
             alert.showAndWait();
         }
@@ -1,13 +1,20 @@
 package models;
 
-import repository.DBRepository;
+import repository.Repositories;
+import repository.Repository;
 import repository.RepositoryConnectionException;
 
 import java.sql.SQLException;
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 
 public class Appointment {
     public enum State {
@@ -24,12 +31,25 @@ public class Appointment {
         }
     }
 
+    /**
+     * The persisted fields of an Appointment which can change after it was loaded
+     */
+    public enum Field {
+        TIME_WINDOW, NOTE, STATE
+    }
+
     private LocalDate date;
     private TimeWindow timeWindow;
     private String note;
     private State state;
     private Reservation reservation = null;
     private Booking booking = null;
+    private int version = 0;
+    private boolean takenByOtherGroup = false;
+
+    private final Set<Field> changedFields = EnumSet.noneOf(Field.class);
+    private State persistedState;
+    private Group persistedGroup;
 
     /**
      * General constructor used by other constructors for fields present in every state
@@ -59,6 +79,7 @@ public class Appointment {
 
         if (!(state == State.FREE || state == State.DEACTIVATED)) throw new InvalidAppointmentStateException();
         this.state = state;
+        markPersisted();
     }
 
     /**
@@ -77,6 +98,7 @@ public class Appointment {
         if (state != State.RESERVED) throw new InvalidAppointmentStateException();
         this.state = state;
         this.reservation = reservation;
+        markPersisted();
     }
 
     /**
@@ -95,6 +117,65 @@ public class Appointment {
         if (state != State.BOOKED) throw new InvalidAppointmentStateException();
         this.state = state;
         this.booking = booking;
+        markPersisted();
+    }
+
+    /**
+     * Creates a reserved or booked appointment of which the holding group and the booking are not known,
+     * used for the appointments of other groups in the schedule shown to a student
+     *
+     * @param date       The appointment's date
+     * @param timeWindow the appointment's time window
+     * @param note       The appointment's note
+     * @param state      The appointment's state
+     * @return the appointment, without reservation or booking
+     * @throws InvalidAppointmentStateException if the state is not State.RESERVED or State.BOOKED
+     */
+    public static Appointment takenByOtherGroup(LocalDate date, TimeWindow timeWindow, String note, State state)
+            throws InvalidAppointmentStateException {
+        if (!(state == State.RESERVED || state == State.BOOKED)) throw new InvalidAppointmentStateException();
+
+        Appointment appointment = new Appointment(date, timeWindow, note);
+        appointment.state = state;
+        appointment.takenByOtherGroup = true;
+        appointment.markPersisted();
+
+        return appointment;
+    }
+
+    /**
+     * Makes a copy of the appointment, which can be changed in the background while the original is shown
+     *
+     * @return an appointment with the same values, versions and changes
+     */
+    public Appointment copy() {
+        Appointment copy = new Appointment(date, timeWindow, note);
+        copy.takeOver(this);
+
+        return copy;
+    }
+
+    /**
+     * Takes over the values of a copy of the appointment, e.g. after the copy was written to the repository
+     *
+     * @param copy the copy made by copy()
+     * @throws IllegalArgumentException if the copy is of an appointment on another date
+     */
+    public void takeOver(Appointment copy) {
+        if (!date.equals(copy.date)) throw new IllegalArgumentException("Not a copy of this appointment");
+
+        timeWindow = copy.timeWindow;
+        note = copy.note;
+        state = copy.state;
+        reservation = copy.reservation;
+        booking = copy.booking == null ? null : copy.booking.copy();
+        version = copy.version;
+        takenByOtherGroup = copy.takenByOtherGroup;
+        persistedState = copy.persistedState;
+        persistedGroup = copy.persistedGroup;
+
+        changedFields.clear();
+        changedFields.addAll(copy.changedFields);
     }
 
     /**
@@ -142,6 +223,24 @@ public class Appointment {
         return reservation;
     }
 
+    /**
+     * Gets the version of the stored Appointment row, which is incremented by every update
+     *
+     * @return the version the Appointment was loaded or last written with
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the stored Appointment row, used by the repository when loading or writing the Appointment
+     *
+     * @param version the version of the stored row
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     /**
      * Gets the appointment's booking
      *
@@ -151,6 +250,154 @@ public class Appointment {
         return booking;
     }
 
+    /**
+     * Determines if the appointment is reserved or booked by a group which is not known
+     *
+     * @return true if the appointment was loaded without its reservation or booking, false otherwise
+     */
+    public boolean isTakenByOtherGroup() {
+        return takenByOtherGroup;
+    }
+
+    /**
+     * Gets the group holding the appointment
+     *
+     * @return the group of the reservation or booking, or null if the appointment is neither reserved nor booked
+     * or taken by an unknown group
+     */
+    public Group getGroup() {
+        if (takenByOtherGroup) return null;
+        if (state == State.RESERVED) return reservation.getGroup();
+        if (state == State.BOOKED) return booking.getGroup();
+        return null;
+    }
+
+    /**
+     * Determines if another Appointment holds the same data, e.g. a freshly loaded copy of this Appointment
+     *
+     * @param other the Appointment to compare with
+     * @return true if date, version, state, time window, note, group and booking details are equal, false otherwise
+     */
+    public boolean hasSameContentAs(Appointment other) {
+        return date.equals(other.date) &&
+                version == other.version &&
+                state == other.state &&
+                Objects.equals(timeWindow, other.timeWindow) &&
+                Objects.equals(note, other.note) &&
+                Objects.equals(getGroup(), other.getGroup()) &&
+                (booking == null ? other.booking == null : other.booking != null && booking.hasSameContentAs(other.booking));
+    }
+
+    /**
+     * Gets the fields changed since the appointment was loaded or last written to the repository
+     *
+     * @return the changed fields
+     */
+    public Set<Field> getChangedFields() {
+        return Collections.unmodifiableSet(changedFields);
+    }
+
+    /**
+     * Gets the state the appointment had when it was loaded or last written to the repository
+     *
+     * @return the persisted state
+     */
+    public State getPersistedState() {
+        return persistedState;
+    }
+
+    /**
+     * Gets the group that held the appointment when it was loaded or last written to the repository
+     *
+     * @return the persisted group of the reservation or booking, or null if there was none
+     */
+    public Group getPersistedGroup() {
+        return persistedGroup;
+    }
+
+    /**
+     * Records the current values as the persisted ones after they were written to the repository
+     */
+    private void markPersisted() {
+        changedFields.clear();
+        persistedState = state;
+        persistedGroup = getGroup();
+
+        if (booking != null) booking.markPersisted();
+    }
+
+    /**
+     * Determines if the appointment or its booking has changes which are not written to the repository yet
+     *
+     * @return true if a field of the appointment or its booking changed, false otherwise
+     */
+    public boolean hasChanges() {
+        return !changedFields.isEmpty() || (booking != null && booking.isChanged());
+    }
+
+    /**
+     * Marks a field as changed and writes all changed fields to the repository
+     *
+     * @param field the field that was changed
+     * @throws RepositoryConnectionException if the connection to the repository fails
+     * @throws SQLException                  if an SQL error occurs
+     */
+    private void update(Field field) throws RepositoryConnectionException, SQLException {
+        changedFields.add(field);
+        flush();
+    }
+
+    /**
+     * Writes all changes of the appointment and its booking to the repository in one transaction
+     *
+     * @throws RepositoryConnectionException if the connection to the repository fails
+     * @throws SQLException                  if an SQL error occurs
+     */
+    void flush() throws RepositoryConnectionException, SQLException {
+        if (!hasChanges()) return;
+
+        try {
+            Repositories.get().updateAppointment(this);
+        } finally {
+            ScheduleCache.invalidate();
+        }
+
+        markPersisted();
+    }
+
+    /**
+     * Changes the time window without writing it to the repository
+     *
+     * @param timeWindow the new time window
+     */
+    void changeTimeWindow(TimeWindow timeWindow) {
+        this.timeWindow = timeWindow;
+        changedFields.add(Field.TIME_WINDOW);
+    }
+
+    /**
+     * Changes the note without writing it to the repository
+     *
+     * @param note the new note
+     */
+    void changeNote(String note) {
+        this.note = note;
+        changedFields.add(Field.NOTE);
+    }
+
+    /**
+     * Restores the time window and note after changes which could not be written to the repository
+     *
+     * @param timeWindow the time window before the changes
+     * @param note       the note before the changes
+     */
+    void discardChanges(TimeWindow timeWindow, String note) {
+        this.timeWindow = timeWindow;
+        this.note = note;
+        changedFields.remove(Field.TIME_WINDOW);
+        changedFields.remove(Field.NOTE);
+    }
+
     /**
      * Reserves an Appointment
      *
@@ -164,42 +411,49 @@ public class Appointment {
      */
     public void reserve(Group reservingGroup) throws OperationNotAllowedException, SQLException,
             RepositoryConnectionException, InvalidAppointmentStateException, InvalidTimeWindowException {
-        if (state != State.FREE) throw new OperationNotAllowedException();
+        if (state == State.DEACTIVATED)
+            throw new OperationNotAllowedException(OperationNotAllowedException.Reason.NOT_ACTIVATED);
+
+        if (state != State.FREE) throw new OperationNotAllowedException(OperationNotAllowedException.Reason.TAKEN);
 
-        if (reservingGroup.hasBooking() || reservingGroup.hasReservation()) {
-            throw new OperationNotAllowedException();
+        if (reservingGroup.getAppointment().isPresent()) {
+            throw new OperationNotAllowedException(OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT);
         }
 
         state = State.RESERVED;
         reservation = new Reservation(reservingGroup);
 
-        DBRepository.getInstance().updateAppointment(this);
+        update(Field.STATE);
     }
 
     /**
      * Cancels the reservation of an appointment
      *
-     * @throws OperationNotAllowedException  if the appointment is not reserved
+     * @throws OperationNotAllowedException  if the appointment is not reserved, or reserved by an unknown group
      * @throws RepositoryConnectionException if the connection to the repository failed
      * @throws SQLException                  if an SQL error occurs
      */
     public void cancelReservation() throws OperationNotAllowedException, RepositoryConnectionException, SQLException {
-        if (state != State.RESERVED) throw new OperationNotAllowedException();
+        if (state != State.RESERVED || takenByOtherGroup) throw new OperationNotAllowedException();
 
         state = State.FREE;
 
         reservation = null;
 
-        DBRepository.getInstance().updateAppointment(this);
+        update(Field.STATE);
     }
 
     /**
      * Books an appointment
      *
+     * The checks against the other Appointments and the writes, including cancelling a reservation of the group
+     * on another date, are done by the repository in a single transaction.
+     *
      * @param bookingGroup the group wishing book the appointment
      * @param bookingStart the start time of the booked time window
      * @throws OperationNotAllowedException     if the appointment is already booked or reserved by a different group or
-     *                                          the booking group has already booked or reserved, or the start time is not within the time window
+     *                                          the booking group has already booked, or the start time is not within the time window,
+     *                                          with the reason of the rejection
      * @throws RepositoryConnectionException    if the connection to the repository fails
      * @throws InvalidAppointmentStateException if the data from the database is invalid
      * @throws InvalidTimeWindowException       if an appointment in the database has an invalid time window
@@ -207,25 +461,31 @@ public class Appointment {
      */
     public void book(Group bookingGroup, LocalTime bookingStart) throws OperationNotAllowedException, SQLException,
             RepositoryConnectionException, InvalidAppointmentStateException, InvalidTimeWindowException {
-        if (state == State.DEACTIVATED || state == State.BOOKED) throw new OperationNotAllowedException();
+        if (state == State.DEACTIVATED)
+            throw new OperationNotAllowedException(OperationNotAllowedException.Reason.NOT_ACTIVATED);
 
-        if (state == State.RESERVED && !this.reservation.getGroup().equals(bookingGroup))
-            throw new OperationNotAllowedException();
+        if (state == State.BOOKED && bookingGroup.equals(getGroup()))
+            throw new OperationNotAllowedException(OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT);
 
-        if (bookingGroup.hasBooking()) throw new OperationNotAllowedException();
+        if (state == State.BOOKED || (state == State.RESERVED && !bookingGroup.equals(getGroup())))
+            throw new OperationNotAllowedException(OperationNotAllowedException.Reason.TAKEN);
 
         if (!timeWindow.contains(bookingStart))
-            throw new OperationNotAllowedException();
+            throw new OperationNotAllowedException(OperationNotAllowedException.Reason.OUTSIDE_TIME_WINDOW);
 
-        if (bookingGroup.hasReservation()) {
-            Appointment reservedAppointment = bookingGroup.getAppointment().get();
-            reservedAppointment.cancelReservation();
+        Appointment booked;
+        try {
+            booked = Repositories.get().book(date, bookingGroup, bookingStart);
+        } finally {
+            ScheduleCache.invalidate();
         }
 
         this.state = State.BOOKED;
-        this.booking = new Booking(bookingGroup, new TimeWindow(bookingStart), null);
+        this.reservation = null;
+        this.booking = booked.booking;
+        this.version = booked.version;
 
-        DBRepository.getInstance().updateAppointment(this);
+        markPersisted();
     }
 
     /**
@@ -239,7 +499,7 @@ public class Appointment {
         booking = null;
         state = State.FREE;
 
-        DBRepository.getInstance().updateAppointment(this);
+        update(Field.STATE);
     }
 
     /**
@@ -253,7 +513,7 @@ public class Appointment {
         booking = null;
         state = State.DEACTIVATED;
 
-        DBRepository.getInstance().updateAppointment(this);
+        update(Field.STATE);
     }
 
     /**
@@ -266,7 +526,7 @@ public class Appointment {
     public void setTimeWindow(TimeWindow timeWindow) throws RepositoryConnectionException, SQLException {
         this.timeWindow = timeWindow;
 
-        DBRepository.getInstance().updateAppointment(this);
+        update(Field.TIME_WINDOW);
     }
 
     /**
@@ -279,12 +539,12 @@ public class Appointment {
     public void setNote(String note) throws RepositoryConnectionException, SQLException {
         this.note = note;
 
-        DBRepository.getInstance().updateAppointment(this);
+        update(Field.NOTE);
     }
 
     /**
      * Generates 15 free Appointments on the 15 working days starting on startDate, with time window 7:30-16:40
-     * Deletes any Appointments previously in the database
+     * Replaces the Appointments previously in the database within these three weeks at once, earlier and later ones are kept
      *
      * @param startDate The start date. Must be a Monday
      * @throws InvalidAppointmentStateException if the start date is not a Monday or an Invalid Appointment is constructed
@@ -296,43 +556,99 @@ public class Appointment {
             if (!(startDate.getDayOfWeek() == DayOfWeek.MONDAY))
                 throw new InvalidAppointmentStateException();
 
-            DBRepository repository = DBRepository.getInstance();
-
-            repository.deleteAllAppointments();
-
             final LocalTime start = LocalTime.of(7, 30);
             final LocalTime end = LocalTime.of(16, 40);
-            final TimeWindow timeWindow = new TimeWindow(start, end);
+            final TimeWindow timeWindow = TimeWindow.of(start, end);
 
             final String note = null;
             final State state = State.FREE;
 
+            List<Appointment> appointments = new ArrayList<>();
+
             for (int week = 0; week < 3; week++) {
                 for (int day = 0; day < 5; day++) {
                     LocalDate date = startDate.plusDays(7 * week + day);
 
-                    Appointment appointment = new Appointment(date, timeWindow, null, state);
-                    repository.insertAppointment(appointment);
+                    appointments.add(new Appointment(date, timeWindow, null, state));
                 }
             }
+
+            Repositories.get().replaceAppointments(startDate, startDate.plusWeeks(3).minusDays(1), appointments);
         } catch (InvalidTimeWindowException e) {
             //Won't happen because 16:40 is after 8:30
         }
     }
 
     /**
-     * Gets all appointments from the database
+     * Gets the appointments within a range of dates from the database
+     *
+     * The list is read from the schedule cache if the same range was loaded last and the schedule did not change since.
      *
-     * @return A list of all appointments
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return An unmodifiable list of the appointments from from to to, both inclusive, ordered by date
      * @throws RepositoryConnectionException    if the connection to the repository failed
      * @throws InvalidAppointmentStateException if the data from the database is invalid
      * @throws InvalidTimeWindowException       if an appointment in the database has an invalid time window
      * @throws SQLException                     if an SQL error occurs
      */
-    public static List<Appointment> all() throws RepositoryConnectionException,
+    public static List<Appointment> between(LocalDate from, LocalDate to) throws RepositoryConnectionException,
             InvalidAppointmentStateException, SQLException, InvalidTimeWindowException {
-        DBRepository repository = DBRepository.getInstance();
+        Repository repository = Repositories.get();
+
+        return ScheduleCache.appointments(repository, from, to, null);
+    }
+
+    /**
+     * Gets the activated appointments within a range of dates as shown to the members of a group
+     *
+     * Appointments of other groups only carry their state, see takenByOtherGroup.
+     *
+     * @param group the group of the student
+     * @param from  the first date of the range
+     * @param to    the last date of the range
+     * @return An unmodifiable list of the appointments from from to to, both inclusive, ordered by date
+     * @throws RepositoryConnectionException    if the connection to the repository failed
+     * @throws InvalidAppointmentStateException if the data from the database is invalid
+     * @throws InvalidTimeWindowException       if an appointment in the database has an invalid time window
+     * @throws SQLException                     if an SQL error occurs
+     */
+    public static List<Appointment> visibleTo(Group group, LocalDate from, LocalDate to)
+            throws RepositoryConnectionException, InvalidAppointmentStateException, SQLException,
+            InvalidTimeWindowException {
+        Repository repository = Repositories.get();
 
-        return repository.getAppointments();
+        return ScheduleCache.appointments(repository, from, to, group);
+    }
+
+    /**
+     * Finds the date the schedule should be shown from
+     *
+     * @param today the current date
+     * @return the date of the next Appointment, the date of the last Appointment if all of them are in the past,
+     * or an empty Optional if there are no Appointments
+     * @throws RepositoryConnectionException if the connection to the repository failed
+     * @throws SQLException                  if an SQL error occurs
+     */
+    public static Optional<LocalDate> findScheduleDate(LocalDate today) throws RepositoryConnectionException,
+            SQLException {
+        return Repositories.get().findScheduleDate(today);
+    }
+
+    /**
+     * Gets the current state of a single Appointment from the database
+     *
+     * Used to fetch just the affected Appointment again after an update failed with a ConcurrentUpdateException.
+     *
+     * @param date the date of the Appointment
+     * @return the Appointment, or an empty Optional if it was deleted
+     * @throws RepositoryConnectionException    if the connection to the repository failed
+     * @throws InvalidAppointmentStateException if the data from the database is invalid
+     * @throws InvalidTimeWindowException       if the appointment in the database has an invalid time window
+     * @throws SQLException                     if an SQL error occurs
+     */
+    public static Optional<Appointment> get(LocalDate date) throws RepositoryConnectionException,
+            InvalidAppointmentStateException, SQLException, InvalidTimeWindowException {
+        return Repositories.get().getAppointment(date);
     }
 }
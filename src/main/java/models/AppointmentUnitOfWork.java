@@ -0,0 +1,130 @@
+package models;
+
+import repository.RepositoryConnectionException;
+
+import java.sql.SQLException;
+
+/**
+ * Collects changes to an Appointment and its Booking and writes them to the repository in one transaction
+ *
+ * The changes are buffered and only applied to the Appointment and Booking by commit(), so an abandoned unit of work
+ * leaves them untouched. If the write fails, the Appointment and Booking are restored to their previous values.
+ */
+public class AppointmentUnitOfWork {
+    private final Appointment appointment;
+
+    private TimeWindow timeWindow;
+    private String note;
+    private boolean noteChanged = false;
+    private TimeWindow bookingTimeWindow;
+    private String bookingRoom;
+    private boolean bookingRoomChanged = false;
+
+    /**
+     * Starts collecting changes for an Appointment
+     *
+     * @param appointment the Appointment to change
+     */
+    public AppointmentUnitOfWork(Appointment appointment) {
+        this.appointment = appointment;
+    }
+
+    /**
+     * Sets the Appointment's time window
+     *
+     * @param timeWindow the new time window
+     */
+    public void setTimeWindow(TimeWindow timeWindow) {
+        this.timeWindow = timeWindow;
+    }
+
+    /**
+     * Sets the Appointment's note
+     *
+     * @param note the new note
+     */
+    public void setNote(String note) {
+        this.note = note;
+        noteChanged = true;
+    }
+
+    /**
+     * Sets the time window of the Appointment's Booking
+     *
+     * @param timeWindow the new time window
+     * @throws OperationNotAllowedException if the Appointment is not booked
+     */
+    public void setBookingTimeWindow(TimeWindow timeWindow) throws OperationNotAllowedException {
+        getBooking();
+        bookingTimeWindow = timeWindow;
+    }
+
+    /**
+     * Sets the room of the Appointment's Booking
+     *
+     * @param room the new room
+     * @throws OperationNotAllowedException if the Appointment is not booked
+     */
+    public void setBookingRoom(String room) throws OperationNotAllowedException {
+        getBooking();
+        bookingRoom = room;
+        bookingRoomChanged = true;
+    }
+
+    /**
+     * Determines if there are changes to be written
+     *
+     * @return true if a change to the Appointment or its Booking was collected, false otherwise
+     */
+    public boolean hasChanges() {
+        return timeWindow != null || noteChanged || bookingTimeWindow != null || bookingRoomChanged;
+    }
+
+    /**
+     * Applies all collected changes and writes them to the repository in one transaction, does nothing if there are none
+     *
+     * @throws OperationNotAllowedException  if Booking changes were collected but the Appointment is not booked anymore
+     * @throws RepositoryConnectionException if the connection to the repository fails
+     * @throws SQLException                  if an SQL error occurs
+     */
+    public void commit() throws OperationNotAllowedException, RepositoryConnectionException, SQLException {
+        if (!hasChanges()) return;
+
+        final Booking booking = bookingTimeWindow != null || bookingRoomChanged ? getBooking() : null;
+        final TimeWindow previousTimeWindow = appointment.getTimeWindow();
+        final String previousNote = appointment.getNote();
+
+        if (timeWindow != null) appointment.changeTimeWindow(timeWindow);
+        if (noteChanged) appointment.changeNote(note);
+
+        TimeWindow previousBookingTimeWindow = null;
+        String previousBookingRoom = null;
+
+        if (booking != null) {
+            previousBookingTimeWindow = booking.getTimeWindow();
+            previousBookingRoom = booking.getRoom();
+
+            if (bookingTimeWindow != null) booking.changeTimeWindow(bookingTimeWindow);
+            if (bookingRoomChanged) booking.changeRoom(bookingRoom);
+        }
+
+        try {
+            appointment.flush();
+        } catch (RepositoryConnectionException | SQLException | RuntimeException e) {
+            appointment.discardChanges(previousTimeWindow, previousNote);
+            if (booking != null) booking.discardChanges(previousBookingTimeWindow, previousBookingRoom);
+            throw e;
+        }
+
+        timeWindow = null;
+        noteChanged = false;
+        bookingTimeWindow = null;
+        bookingRoomChanged = false;
+    }
+
+    private Booking getBooking() throws OperationNotAllowedException {
+        if (appointment.getState() != Appointment.State.BOOKED) throw new OperationNotAllowedException();
+
+        return appointment.getBooking();
+    }
+}
@@ -1,14 +1,17 @@
 package models;
 
-import repository.DBRepository;
+import repository.Repositories;
 import repository.RepositoryConnectionException;
 
 import java.sql.SQLException;
+import java.util.Objects;
 
 public class Booking {
     private Group group;
     private TimeWindow timeWindow;
     private String room;
+    private boolean changed = false;
+    private int version = 0;
 
     /**
      * Constructs a new Booking
@@ -50,6 +53,50 @@ public class Booking {
         return room;
     }
 
+    /**
+     * Gets the version of the stored Booking row, which is incremented by every update
+     *
+     * @return the version the Booking was loaded or last written with
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the version of the stored Booking row, used by the repository when loading or writing the Booking
+     *
+     * @param version the version of the stored row
+     */
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Makes a copy of the Booking, including its version and whether it changed
+     *
+     * @return a Booking with the same values
+     */
+    Booking copy() {
+        Booking copy = new Booking(group, timeWindow, room);
+        copy.version = version;
+        copy.changed = changed;
+
+        return copy;
+    }
+
+    /**
+     * Determines if another Booking holds the same data
+     *
+     * @param other the Booking to compare with
+     * @return true if version, group, time window and room are equal, false otherwise
+     */
+    public boolean hasSameContentAs(Booking other) {
+        return version == other.version &&
+                Objects.equals(group, other.group) &&
+                Objects.equals(timeWindow, other.timeWindow) &&
+                Objects.equals(room, other.room);
+    }
+
     /**
      * Sets the booking's time window
      *
@@ -58,8 +105,15 @@ public class Booking {
      * @throws SQLException                  if an SQL error occurs
      */
     public void updateTimeWindow(TimeWindow timeWindow) throws RepositoryConnectionException, SQLException {
-        this.timeWindow = timeWindow;
-        DBRepository.getInstance().updateBooking(this);
+        changeTimeWindow(timeWindow);
+
+        try {
+            Repositories.get().updateBooking(this);
+        } finally {
+            ScheduleCache.invalidate();
+        }
+
+        markPersisted();
     }
 
     /**
@@ -70,8 +124,63 @@ public class Booking {
      * @throws SQLException                  if an SQL error occurs
      */
     public void updateRoom(String room) throws RepositoryConnectionException, SQLException {
+        changeRoom(room);
+
+        try {
+            Repositories.get().updateBooking(this);
+        } finally {
+            ScheduleCache.invalidate();
+        }
+
+        markPersisted();
+    }
+
+    /**
+     * Changes the booking's time window without writing it to the repository
+     *
+     * @param timeWindow the time window
+     */
+    void changeTimeWindow(TimeWindow timeWindow) {
+        this.timeWindow = timeWindow;
+        changed = true;
+    }
+
+    /**
+     * Changes the booking's room without writing it to the repository
+     *
+     * @param room the room
+     */
+    void changeRoom(String room) {
         this.room = room;
-        DBRepository.getInstance().updateBooking(this);
+        changed = true;
+    }
+
+    /**
+     * Restores the time window and room after changes which could not be written to the repository
+     *
+     * @param timeWindow the time window before the changes
+     * @param room       the room before the changes
+     */
+    void discardChanges(TimeWindow timeWindow, String room) {
+        this.timeWindow = timeWindow;
+        this.room = room;
+        changed = false;
+    }
+
+    /**
+     * Determines if the booking changed since it was loaded or last written to the repository
+     *
+     * @return true if the time window or room changed, false otherwise
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Records that the booking's current values were written to the repository
+     */
+    void markPersisted() {
+        changed = false;
     }
 
     /**
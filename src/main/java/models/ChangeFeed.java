@@ -0,0 +1,100 @@
+package models;
+
+import repository.Repositories;
+import repository.Repository;
+import repository.RepositoryConnectionException;
+import repository.ScheduleChange;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Reads the changes made to the schedule by any client from the change log of the repository
+ *
+ * A subscriber keeps the sequence number of the last change it applied and only fetches
+ * the Appointments changed after it, instead of the whole schedule. The latest sequence number is read through
+ * the ScheduleCache, which revalidates its data against the same number.
+ */
+public class ChangeFeed {
+    /**
+     * Gets the current end of the change log, to read before loading the whole schedule
+     *
+     * @return the sequence number of the latest change
+     * @throws RepositoryConnectionException if the connection to the repository fails
+     * @throws SQLException                  if an SQL error occurs
+     */
+    public static long latestSequence() throws RepositoryConnectionException, SQLException {
+        return ScheduleCache.latestSequence(Repositories.get());
+    }
+
+    /**
+     * Reads the changes after a sequence number and fetches the current state of the changed Appointments
+     * within a range of dates
+     *
+     * Changes of Appointments outside of the range are skipped, but still covered by the sequence number of the update.
+     * The changed Appointments are read with a single query over the dates from the first to the last changed one,
+     * like Appointment.between or, for a viewing group, like Appointment.visibleTo, so a deactivated Appointment
+     * is removed from the schedule of a student. The change log is only read if the latest sequence number differs.
+     *
+     * @param sequence the sequence number of the last change already applied
+     * @param from     the first date of the range the subscriber shows
+     * @param to       the last date of the range the subscriber shows
+     * @param viewer   the group of the student subscribing, or null for all details
+     * @return the update containing the changes, which is empty if nothing changed
+     * @throws RepositoryConnectionException    if the connection to the repository fails
+     * @throws SQLException                     if an SQL error occurs
+     * @throws InvalidAppointmentStateException if the data from the database is invalid
+     * @throws InvalidTimeWindowException       if the data from the database is invalid
+     */
+    public static ScheduleUpdate changesAfter(long sequence, LocalDate from, LocalDate to, Group viewer)
+            throws RepositoryConnectionException, SQLException, InvalidAppointmentStateException,
+            InvalidTimeWindowException {
+        Repository repository = Repositories.get();
+        List<ScheduleChange> changes = ScheduleCache.latestSequence(repository) == sequence ? Collections.emptyList() :
+                repository.getChangesAfter(sequence);
+
+        if (changes.isEmpty()) {
+            return new ScheduleUpdate(sequence, false, false, Collections.emptyMap(), Collections.emptySet());
+        }
+
+        long lastSequence = changes.get(changes.size() - 1).getSequence();
+        boolean groupsChanged = false;
+        NavigableSet<LocalDate> changedDates = new TreeSet<>();
+
+        for (ScheduleChange change : changes) {
+            switch (change.getKind()) {
+                case SCHEDULE:
+                    return new ScheduleUpdate(lastSequence, true, true, Collections.emptyMap(), Collections.emptySet());
+                case GROUP:
+                    groupsChanged = true;
+                    break;
+                case APPOINTMENT:
+                    LocalDate date = change.getAppointmentDate();
+                    if (!date.isBefore(from) && !date.isAfter(to)) changedDates.add(date);
+                    break;
+            }
+        }
+
+        if (changedDates.isEmpty()) {
+            return new ScheduleUpdate(lastSequence, false, groupsChanged, Collections.emptyMap(), Collections.emptySet());
+        }
+
+        LocalDate first = changedDates.first();
+        LocalDate last = changedDates.last();
+        List<Appointment> appointments = viewer == null ? repository.getAppointments(first, last) :
+                repository.getStudentAppointments(first, last, viewer.getNumber());
+
+        Map<LocalDate, Appointment> changedAppointments = new HashMap<>();
+        Set<LocalDate> removedDates = new HashSet<>(changedDates);
+
+        for (Appointment appointment : appointments) {
+            if (changedDates.contains(appointment.getDate())) {
+                changedAppointments.put(appointment.getDate(), appointment);
+                removedDates.remove(appointment.getDate());
+            }
+        }
+
+        return new ScheduleUpdate(lastSequence, false, groupsChanged, changedAppointments, removedDates);
+    }
+}
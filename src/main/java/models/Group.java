@@ -1,13 +1,13 @@
 package models;
 
-import repository.DBRepository;
+import repository.Repositories;
 import repository.RepositoryConnectionException;
 
 import java.sql.SQLException;
 import java.util.*;
 
 public class Group {
-    private int number;
+    private final int number;
 
     /**
      * Constructs a new group
@@ -32,11 +32,21 @@ public class Group {
      * @throws SQLException if an SQL error occurs
      */
     public static List<Group> all() throws RepositoryConnectionException, SQLException {
-        return DBRepository.getInstance().getGroups();
+        return Repositories.get().getGroups();
     }
 
     /**
-     * Deletes all previous Groups from the database and generates numberOfGroups new ones
+     * Gets all groups with their reservation and booking status
+     * @return the status of all groups, loaded with a single query
+     * @throws RepositoryConnectionException if the connection to the repository fails
+     * @throws SQLException if an SQL error occurs
+     */
+    public static GroupStatusIndex statuses() throws RepositoryConnectionException, SQLException {
+        return ScheduleCache.groupStatuses(Repositories.get());
+    }
+
+    /**
+     * Replaces all previous Groups in the database by numberOfGroups new ones at once
      * @param numberOfGroups the desired number of groups
      * @throws RepositoryConnectionException if the connection to the repository fails
      * @throws SQLException if an SQL error occurs
@@ -46,14 +56,7 @@ public class Group {
         if(numberOfGroups < 1)
             throw new IllegalArgumentException();
 
-        DBRepository repository = DBRepository.getInstance();
-
-        repository.deleteAllGroups();
-
-        for(int i = 1 ; i <= numberOfGroups ; i++){
-            Group group = new Group(i);
-            repository.insertGroup(group);
-        }
+        Repositories.get().replaceGroups(1, numberOfGroups);
     }
 
     /**
@@ -63,7 +66,7 @@ public class Group {
      * @throws SQLException if an SQL error occurs
      */
     public static void delete(Group group) throws RepositoryConnectionException, SQLException {
-        DBRepository.getInstance().deleteGroup(group);
+        Repositories.get().deleteGroup(group);
     }
 
     /**
@@ -79,7 +82,7 @@ public class Group {
 
         Group group = new Group(groupNo);
 
-        DBRepository.getInstance().insertGroup(group);
+        Repositories.get().insertGroup(group);
 
         return group;
     }
@@ -94,6 +97,15 @@ public class Group {
         return (obj instanceof Group) && (this.number == ((Group) obj).number);
     }
 
+    /**
+     * Computes the hash code from the group number, consistent with equals
+     * @return the hash code of the group
+     */
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(number);
+    }
+
     /**
      * Determines if a group has a reservation
      * @return true if there is an Appointment with state RESERVED reserved by this group, false otherwise
@@ -103,9 +115,9 @@ public class Group {
      * @throws SQLException if an SQL error occurs
      */
     public boolean hasReservation() throws SQLException, RepositoryConnectionException, InvalidAppointmentStateException, InvalidTimeWindowException {
-        return Appointment.all().stream()
+        return getAppointment()
                 .filter(appointment -> appointment.getState() == Appointment.State.RESERVED)
-                .filter(appointment -> appointment.getReservation().getGroup().equals(this)).count() != 0;
+                .isPresent();
     }
 
     /**
@@ -117,9 +129,9 @@ public class Group {
      * @throws SQLException if an SQL error occurs
      */
     public boolean hasBooking() throws SQLException, RepositoryConnectionException, InvalidAppointmentStateException, InvalidTimeWindowException {
-        return Appointment.all().stream()
+        return getAppointment()
                 .filter(appointment -> appointment.getState() == Appointment.State.BOOKED)
-                .filter(appointment -> appointment.getBooking().getGroup().equals(this)).count() != 0;
+                .isPresent();
     }
 
     /**
@@ -132,19 +144,7 @@ public class Group {
      * @throws SQLException if an SQL error occurs
      */
     public Optional<Appointment> getAppointment() throws SQLException, RepositoryConnectionException, InvalidAppointmentStateException, InvalidTimeWindowException {
-        Optional<Appointment> bookedAppointment =  Appointment.all().stream()
-                .filter(appointment ->
-                        (appointment.getState() == Appointment.State.BOOKED))
-                .filter(appointment -> appointment.getBooking().getGroup().equals(this))
-                .findFirst();
-
-        Optional<Appointment> reservedAppointment =  Appointment.all().stream()
-                .filter(appointment ->
-                        (appointment.getState() == Appointment.State.RESERVED))
-                .filter(appointment -> appointment.getReservation().getGroup().equals(this))
-                .findFirst();
-
-        return bookedAppointment.isPresent() ? bookedAppointment : reservedAppointment;
+        return Repositories.get().findAppointmentForGroup(number);
     }
 
     /**
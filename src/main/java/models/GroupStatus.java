@@ -0,0 +1,15 @@
+package models;
+
+public enum GroupStatus {
+    NONE("Nicht gebucht"), RESERVED("Reserviert"), BOOKED("Gebucht");
+    private String stringRepresentation;
+
+    GroupStatus(String stringRepresentation) {
+        this.stringRepresentation = stringRepresentation;
+    }
+
+    @Override
+    public String toString() {
+        return stringRepresentation;
+    }
+}
@@ -0,0 +1,81 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A snapshot of the reservation and booking status of the groups, taken once per refresh
+ */
+public class GroupStatusIndex {
+    private final Map<Group, GroupStatus> statuses;
+
+    /**
+     * Constructs a new GroupStatusIndex
+     *
+     * @param statuses the status of the groups, groups without an entry have GroupStatus.NONE
+     */
+    public GroupStatusIndex(Map<Group, GroupStatus> statuses) {
+        Map<Group, GroupStatus> byNumber = new TreeMap<>(Comparator.comparingInt(Group::getNumber));
+        byNumber.putAll(statuses);
+
+        this.statuses = Collections.unmodifiableMap(byNumber);
+    }
+
+    /**
+     * Builds the index from a list of already loaded Appointments in a single pass
+     *
+     * @param appointments the Appointments, Appointments taken by an unknown group are skipped
+     * @return the status of every group reserving or booking one of the Appointments
+     */
+    public static GroupStatusIndex of(List<Appointment> appointments) {
+        Map<Group, GroupStatus> statuses = new TreeMap<>(Comparator.comparingInt(Group::getNumber));
+
+        for (Appointment appointment : appointments) {
+            Group group = appointment.getGroup();
+            if (group == null) continue;
+
+            if (appointment.getState() == Appointment.State.BOOKED) {
+                statuses.put(group, GroupStatus.BOOKED);
+            } else {
+                statuses.putIfAbsent(group, GroupStatus.RESERVED);
+            }
+        }
+
+        return new GroupStatusIndex(statuses);
+    }
+
+    /**
+     * Gets the groups contained in the index
+     *
+     * @return the groups ordered by group number
+     */
+    public List<Group> getGroups() {
+        return new ArrayList<>(statuses.keySet());
+    }
+
+    /**
+     * Gets the status of a group
+     *
+     * @param group the group
+     * @return the group's status at the time the snapshot was taken
+     */
+    public GroupStatus getStatus(Group group) {
+        return statuses.getOrDefault(group, GroupStatus.NONE);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GroupStatusIndex)) return false;
+        return statuses.equals(((GroupStatusIndex) o).statuses);
+    }
+
+    @Override
+    public int hashCode() {
+        return statuses.hashCode();
+    }
+}
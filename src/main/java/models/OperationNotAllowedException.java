@@ -4,4 +4,57 @@ package models;
  * An Exception thrown if the booking, reservation or cancellation operation is not allowed
  */
 public class OperationNotAllowedException extends Exception {
+    /**
+     * The reason an operation was rejected
+     */
+    public enum Reason {
+        /**
+         * The Appointment is deactivated or does not exist
+         */
+        NOT_ACTIVATED,
+        /**
+         * The Appointment is booked or reserved by another group
+         */
+        TAKEN,
+        /**
+         * The group has already booked an Appointment, or reserved one when reserving
+         */
+        GROUP_HAS_APPOINTMENT,
+        /**
+         * The start time of a booking is not within the time window of the Appointment
+         */
+        OUTSIDE_TIME_WINDOW,
+        /**
+         * The Appointment is not in the state the operation requires
+         */
+        INVALID_STATE
+    }
+
+    private final Reason reason;
+
+    /**
+     * Constructs an OperationNotAllowedException for an Appointment in the wrong state
+     */
+    public OperationNotAllowedException() {
+        this(Reason.INVALID_STATE);
+    }
+
+    /**
+     * Constructs an OperationNotAllowedException
+     *
+     * @param reason the reason the operation was rejected
+     */
+    public OperationNotAllowedException(Reason reason) {
+        super(reason.name());
+        this.reason = reason;
+    }
+
+    /**
+     * Gets the reason the operation was rejected
+     *
+     * @return the reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
 }
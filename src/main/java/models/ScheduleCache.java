@@ -0,0 +1,111 @@
+package models;
+
+import repository.Repositories;
+import repository.Repository;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A read-through cache of the schedule, revalidated against the change log of the repository
+ *
+ * Every change to the schedule is appended to the change log, so the sequence number of the latest change serves as
+ * the version of the schedule. Before cached data is returned the latest sequence number is read, and the data is only
+ * fetched again if it changed, which makes refreshes without changes cost a single-value query instead of the full
+ * schedule. The ChangeFeed reads the version through the cache as well, so it is checked in one place only.
+ */
+class ScheduleCache {
+    private static Repository repository;
+    private static long version;
+    private static LocalDate from;
+    private static LocalDate to;
+    private static Group viewer;
+    private static List<Appointment> appointments;
+    private static GroupStatusIndex groupStatuses;
+
+    private ScheduleCache() {
+    }
+
+    /**
+     * Gets the Appointments within a range of dates, from the cache if the same range was requested last
+     * for the same viewer and the schedule did not change
+     *
+     * @param repository the repository to read from
+     * @param from       the first date of the range
+     * @param to         the last date of the range
+     * @param viewer     the group of the student viewing the Appointments, or null for all details
+     * @return an unmodifiable list of the Appointments within the range
+     * @throws SQLException                     if an SQL error occurs
+     * @throws InvalidAppointmentStateException if the data from the database is invalid
+     * @throws InvalidTimeWindowException       if the data from the database is invalid
+     */
+    static synchronized List<Appointment> appointments(Repository repository, LocalDate from, LocalDate to,
+                                                       Group viewer) throws SQLException,
+            InvalidAppointmentStateException, InvalidTimeWindowException {
+        revalidate(repository);
+
+        if (appointments == null || !from.equals(ScheduleCache.from) || !to.equals(ScheduleCache.to) ||
+                !Objects.equals(viewer, ScheduleCache.viewer)) {
+            List<Appointment> loaded = viewer == null ? repository.getAppointments(from, to) :
+                    repository.getStudentAppointments(from, to, viewer.getNumber());
+
+            appointments = Collections.unmodifiableList(new ArrayList<>(loaded));
+            ScheduleCache.from = from;
+            ScheduleCache.to = to;
+            ScheduleCache.viewer = viewer;
+        }
+        return appointments;
+    }
+
+    /**
+     * Gets the status of all Groups, from the cache if the schedule did not change
+     *
+     * @param repository the repository to read from
+     * @return the status of all Groups
+     * @throws SQLException if an SQL error occurs
+     */
+    static synchronized GroupStatusIndex groupStatuses(Repository repository) throws SQLException {
+        revalidate(repository);
+
+        if (groupStatuses == null) {
+            groupStatuses = new GroupStatusIndex(repository.getGroupStatuses());
+        }
+        return groupStatuses;
+    }
+
+    /**
+     * Gets the sequence number of the latest change, revalidating the cached data against it
+     *
+     * @param repository the repository to read from
+     * @return the latest sequence number
+     * @throws SQLException if an SQL error occurs
+     */
+    static synchronized long latestSequence(Repository repository) throws SQLException {
+        revalidate(repository);
+
+        return version;
+    }
+
+    /**
+     * Drops the cached data, e.g. because cached Appointments were changed in memory
+     */
+    static synchronized void invalidate() {
+        repository = null;
+        appointments = null;
+        groupStatuses = null;
+    }
+
+    private static void revalidate(Repository currentRepository) throws SQLException {
+        long currentVersion = currentRepository.getLatestChangeSequence();
+
+        if (currentRepository != repository || currentVersion != version) {
+            invalidate();
+            repository = currentRepository;
+            version = currentVersion;
+        }
+    }
+}
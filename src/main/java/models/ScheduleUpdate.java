@@ -0,0 +1,113 @@
+package models;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The changes to the schedule read from the change log since a known position
+ */
+public class ScheduleUpdate {
+    private final long sequence;
+    private final boolean fullReloadRequired;
+    private final boolean groupsChanged;
+    private final Map<LocalDate, Appointment> changedAppointments;
+    private final Set<LocalDate> removedDates;
+
+    /**
+     * Constructs a ScheduleUpdate
+     *
+     * @param sequence            the sequence number of the last change contained in the update
+     * @param fullReloadRequired  true if the whole schedule changed and has to be loaded again
+     * @param groupsChanged       true if Groups were added or deleted
+     * @param changedAppointments the current state of the changed Appointments
+     * @param removedDates        the dates of deleted Appointments
+     */
+    ScheduleUpdate(long sequence, boolean fullReloadRequired, boolean groupsChanged,
+                   Map<LocalDate, Appointment> changedAppointments, Set<LocalDate> removedDates) {
+        this.sequence = sequence;
+        this.fullReloadRequired = fullReloadRequired;
+        this.groupsChanged = groupsChanged;
+        this.changedAppointments = Collections.unmodifiableMap(changedAppointments);
+        this.removedDates = Collections.unmodifiableSet(removedDates);
+    }
+
+    /**
+     * Gets the position of the change log after the update
+     *
+     * @return the sequence number of the last change contained in the update
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Determines if nothing changed
+     *
+     * @return true if the update contains no changes, false otherwise
+     */
+    public boolean isEmpty() {
+        return !fullReloadRequired && !groupsChanged && changedAppointments.isEmpty() && removedDates.isEmpty();
+    }
+
+    /**
+     * Determines if the changes can't be applied incrementally
+     *
+     * @return true if the whole schedule has to be loaded again, false otherwise
+     */
+    public boolean isFullReloadRequired() {
+        return fullReloadRequired;
+    }
+
+    /**
+     * Determines if Groups were added or deleted
+     *
+     * @return true if the Groups changed, false otherwise
+     */
+    public boolean haveGroupsChanged() {
+        return groupsChanged;
+    }
+
+    /**
+     * Gets the current state of the changed Appointments
+     *
+     * @return the changed and added Appointments by date
+     */
+    public Map<LocalDate, Appointment> getChangedAppointments() {
+        return changedAppointments;
+    }
+
+    /**
+     * Gets the dates of deleted Appointments
+     *
+     * @return the dates of deleted Appointments
+     */
+    public Set<LocalDate> getRemovedDates() {
+        return removedDates;
+    }
+
+    /**
+     * Applies the changed and removed Appointments to a list of Appointments
+     *
+     * @param appointments the Appointments before the update, which are not modified
+     * @return a new list with changed Appointments replaced, removed ones left out and added ones appended
+     */
+    public List<Appointment> applyTo(List<Appointment> appointments) {
+        List<Appointment> result = new ArrayList<>(appointments.size());
+        Set<LocalDate> applied = new HashSet<>();
+
+        for (Appointment appointment : appointments) {
+            LocalDate date = appointment.getDate();
+            if (removedDates.contains(date)) continue;
+
+            Appointment changed = changedAppointments.get(date);
+            result.add(changed == null ? appointment : changed);
+            applied.add(date);
+        }
+
+        for (Appointment appointment : changedAppointments.values()) {
+            if (!applied.contains(appointment.getDate())) result.add(appointment);
+        }
+
+        return result;
+    }
+}
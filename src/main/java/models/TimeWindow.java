@@ -1,33 +1,76 @@
 package models;
 
 import java.time.LocalTime;
-import java.util.Objects;
 
-public class TimeWindow {
-    private LocalTime start;
-    private LocalTime end;
+/**
+ * An immutable time window with second precision, optionally without end time
+ *
+ * The times are stored as seconds of the day, fractions of a second are dropped. Instances are obtained with the of
+ * methods, which return a shared instance for windows used before, e.g. the default time window of the Appointments
+ * loaded from the database. The instances keep their start and end as LocalTime as well, so the getters don't allocate.
+ */
+public final class TimeWindow {
+    private static final int NO_END = -1;
+    private static final int CACHE_SIZE = 1024;
+    private static final TimeWindow[] CACHE = new TimeWindow[CACHE_SIZE];
+
+    private static final int END_OF_DAY = 24 * 60 * 60;
+
+    private final int start;
+    private final int end;
+    private final LocalTime startTime;
+    private final LocalTime endTime;
+
+    private TimeWindow(int start, int end) {
+        this.start = start;
+        this.end = end;
+        this.startTime = LocalTime.ofSecondOfDay(start);
+        this.endTime = end == NO_END ? null : LocalTime.ofSecondOfDay(end);
+    }
 
     /**
-     * Constructs a new TimeWindow
+     * Gets a TimeWindow
      * @param start the start time
-     * @param end the end time
+     * @param end the end time, or null for a window without end time
+     * @return the TimeWindow
      * @throws InvalidTimeWindowException if the end is before the start
      */
-    public TimeWindow(LocalTime start, LocalTime end) throws InvalidTimeWindowException {
-        if(end!=null && end.isBefore(start))
+    public static TimeWindow of(LocalTime start, LocalTime end) throws InvalidTimeWindowException {
+        if (end == null) return of(start);
+
+        int startSecond = start.toSecondOfDay();
+        int endSecond = end.toSecondOfDay();
+
+        if (endSecond < startSecond)
             throw new InvalidTimeWindowException();
 
-        this.start = start;
-        this.end = end;
+        return intern(startSecond, endSecond);
     }
 
     /**
-     * Constructs a new TimeWindow without end time
+     * Gets a TimeWindow without end time
      * @param start the start time
+     * @return the TimeWindow
      */
-    public TimeWindow(LocalTime start){
-        this.start = start;
-        this.end=null;
+    public static TimeWindow of(LocalTime start) {
+        return intern(start.toSecondOfDay(), NO_END);
+    }
+
+    /**
+     * Returns the cached instance of a window, replacing the cached window with the same slot if it differs
+     *
+     * Instances are immutable, so unsynchronized access to the cache at worst creates a window twice.
+     */
+    private static TimeWindow intern(int start, int end) {
+        long key = (long) start * (END_OF_DAY + 1) + end + 1;
+        int slot = (int) (key ^ (key >>> 10) ^ (key >>> 20)) & (CACHE_SIZE - 1);
+
+        TimeWindow cached = CACHE[slot];
+        if (cached != null && cached.start == start && cached.end == end) return cached;
+
+        TimeWindow timeWindow = new TimeWindow(start, end);
+        CACHE[slot] = timeWindow;
+        return timeWindow;
     }
 
     /**
@@ -35,50 +78,39 @@ public class TimeWindow {
      * @return the start time
      */
     public LocalTime getStart() {
-        return start;
+        return startTime;
     }
 
     /**
      * Gets the end time
-     * @return the end time
+     * @return the end time, or null if the window has no end time
      */
     public LocalTime getEnd() {
-        return end;
+        return endTime;
     }
 
     /**
-     * Sets the start time
-     * @param start the start time
-     * @throws InvalidTimeWindowException if the start time is after the end time
+     * Checks if the TimeWindow contains the time time
+     * @param time the time to be checked
+     * @return true if time is after start and before end (if present), false otherwise
      */
-    public void setStart(LocalTime start) throws InvalidTimeWindowException {
-        if(end!=null && start.isAfter(end))
-            throw new InvalidTimeWindowException();
+    boolean contains(LocalTime time) {
+        int second = time.toSecondOfDay();
 
-        this.start = start;
+        return second > start && (end == NO_END || second < end);
     }
 
     /**
-     * Sets the end time
-     * @param end the end time
-     * @throws InvalidTimeWindowException if the end time is before the start time
+     * Checks if the TimeWindow overlaps another one, a window without end time lasting until the end of the day
+     * @param other the other TimeWindow
+     * @return true if the windows share more than a single point in time, false otherwise
      */
-    public void setEnd(LocalTime end) throws InvalidTimeWindowException {
-        if(end.isBefore(start))
-            throw new InvalidTimeWindowException();
-        this.end = end;
+    boolean overlaps(TimeWindow other) {
+        return start < other.endOrEndOfDay() && other.start < endOrEndOfDay();
     }
 
-    /**
-     * Checks if the TimeWindow contains the time time
-     * @param time the time to be checked
-     * @return true if time is after start and before end (if present), false otherwise
-     */
-    boolean contains(LocalTime time){
-        if(end==null)
-            return time.isAfter(start);
-
-        return (time.isAfter(start) && time.isBefore(end));
+    private int endOrEndOfDay() {
+        return end == NO_END ? END_OF_DAY : end;
     }
 
     @Override
@@ -86,8 +118,12 @@ public class TimeWindow {
         if (this == o) return true;
         if (!(o instanceof TimeWindow)) return false;
         TimeWindow that = (TimeWindow) o;
-        return Objects.equals(start, that.start) &&
-                Objects.equals(end, that.end);
+        return start == that.start && end == that.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * start + end;
     }
 
     /**
@@ -96,8 +132,8 @@ public class TimeWindow {
      */
     @Override
     public String toString(){
-        if(end==null) return start.toString();
+        if (end == NO_END) return startTime.toString();
 
-        return start.toString() + "-" + end.toString();
+        return startTime.toString() + "-" + endTime.toString();
     }
 }
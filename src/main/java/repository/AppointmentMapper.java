@@ -0,0 +1,236 @@
+package repository;
+
+import models.*;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Maps the rows of an appointment query to Appointments
+ *
+ * The column indices are resolved once when the mapper is created for a result set, instead of looking up every
+ * column by name on every row. Consecutive rows of the same date, as produced by the joins with Reservation and
+ * Booking, are collapsed into a single Appointment with the highest state, so the query has to be ordered by date.
+ */
+abstract class AppointmentMapper {
+    private final IntFunction<Group> groups;
+
+    private final int date;
+    private final int startTime;
+    private final int endTime;
+    private final int note;
+    private final int version;
+    final int groupNumber;
+    private final int bookingStart;
+    private final int bookingEnd;
+    private final int room;
+    private final int bookingVersion;
+
+    private int rowCount = 0;
+
+    /**
+     * Resolves the columns shared by all appointment queries
+     *
+     * @param results the result set of the query
+     * @param groups  gets the Group with a number, e.g. from the identity map of the repository
+     * @throws SQLException if a column is missing
+     */
+    AppointmentMapper(ResultSet results, IntFunction<Group> groups) throws SQLException {
+        this.groups = groups;
+
+        date = results.findColumn("Date");
+        startTime = results.findColumn("StartTime");
+        endTime = results.findColumn("EndTime");
+        note = results.findColumn("Note");
+        version = results.findColumn("Version");
+        groupNumber = results.findColumn("Groups");
+        bookingStart = results.findColumn("BookStart");
+        bookingEnd = results.findColumn("BookEnd");
+        room = results.findColumn("Room");
+        bookingVersion = results.findColumn("BookingVersion");
+    }
+
+    /**
+     * Creates a mapper for the complete appointment query with the Activated column
+     *
+     * @param results the result set of the query
+     * @param groups  gets the Group with a number
+     * @return the mapper
+     * @throws SQLException if a column is missing
+     */
+    static AppointmentMapper forSchedule(ResultSet results, IntFunction<Group> groups) throws SQLException {
+        return new ScheduleMapper(results, groups);
+    }
+
+    /**
+     * Creates a mapper for the student appointment query with the StateCode column, in which the group
+     * is only set for the student's own reservation or booking
+     *
+     * @param results the result set of the query
+     * @param groups  gets the Group with a number
+     * @return the mapper
+     * @throws SQLException if a column is missing
+     */
+    static AppointmentMapper forStudent(ResultSet results, IntFunction<Group> groups) throws SQLException {
+        return new StudentMapper(results, groups);
+    }
+
+    /**
+     * Maps the remaining rows of the result set, collapsing consecutive rows of the same date
+     *
+     * @param results the result set, positioned before the first row to map
+     * @return the Appointments in the order of the rows
+     * @throws SQLException                     if a column can't be read
+     * @throws InvalidAppointmentStateException if an appointment has an invalid state
+     * @throws InvalidTimeWindowException       if an appointment's or booking's time window is invalid
+     */
+    List<Appointment> mapAll(ResultSet results) throws SQLException, InvalidAppointmentStateException,
+            InvalidTimeWindowException {
+        List<Appointment> appointments = new ArrayList<>();
+        Appointment previous = null;
+        rowCount = 0;
+
+        while (results.next()) {
+            Appointment appointment = map(results);
+            rowCount++;
+
+            if (previous != null && previous.getDate().equals(appointment.getDate())) {
+                if (appointment.getState().compareTo(previous.getState()) > 0) {
+                    appointments.set(appointments.size() - 1, appointment);
+                    previous = appointment;
+                }
+                continue;
+            }
+
+            appointments.add(appointment);
+            previous = appointment;
+        }
+
+        return appointments;
+    }
+
+    /**
+     * Gets the number of rows read by the last call to mapAll, before collapsing
+     *
+     * @return the number of rows
+     */
+    int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Maps the current row of the result set
+     *
+     * @param results the result set positioned on the row to map
+     * @return the Appointment
+     * @throws SQLException                     if a column can't be read
+     * @throws InvalidAppointmentStateException if the appointment has an invalid state
+     * @throws InvalidTimeWindowException       if the appointment's or booking's time window is invalid
+     */
+    Appointment map(ResultSet results) throws SQLException, InvalidAppointmentStateException,
+            InvalidTimeWindowException {
+        LocalDate appointmentDate = results.getDate(date).toLocalDate();
+        TimeWindow timeWindow = TimeWindow.of(results.getTime(startTime).toLocalTime(),
+                results.getTime(endTime).toLocalTime());
+        String appointmentNote = results.getString(note);
+
+        Appointment appointment = mapState(results, appointmentDate, timeWindow, appointmentNote);
+        appointment.setVersion(results.getInt(version));
+
+        return appointment;
+    }
+
+    /**
+     * Creates the Appointment with the state, reservation and booking of the current row
+     */
+    abstract Appointment mapState(ResultSet results, LocalDate date, TimeWindow timeWindow, String note)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException;
+
+    Group group(int number) {
+        return groups.apply(number);
+    }
+
+    Booking mapBooking(ResultSet results, Group group, Time start) throws SQLException, InvalidTimeWindowException {
+        Time end = results.getTime(bookingEnd);
+        TimeWindow timeWindow = TimeWindow.of(start.toLocalTime(), end == null ? null : end.toLocalTime());
+
+        Booking booking = new Booking(group, timeWindow, results.getString(room));
+        booking.setVersion(results.getInt(bookingVersion));
+
+        return booking;
+    }
+
+    Time getBookingStart(ResultSet results) throws SQLException {
+        return results.getTime(bookingStart);
+    }
+
+    private static class ScheduleMapper extends AppointmentMapper {
+        private final int activated;
+
+        private ScheduleMapper(ResultSet results, IntFunction<Group> groups) throws SQLException {
+            super(results, groups);
+            activated = results.findColumn("Activated");
+        }
+
+        @Override
+        Appointment mapState(ResultSet results, LocalDate date, TimeWindow timeWindow, String note)
+                throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+            if (!results.getBoolean(activated)) {
+                return new Appointment(date, timeWindow, note, Appointment.State.DEACTIVATED);
+            }
+
+            int number = results.getInt(groupNumber);
+            if (results.wasNull()) {
+                return new Appointment(date, timeWindow, note, Appointment.State.FREE);
+            }
+
+            Group group = group(number);
+            Time start = getBookingStart(results);
+
+            if (start == null) {
+                return new Appointment(date, timeWindow, note, Appointment.State.RESERVED, new Reservation(group));
+            }
+
+            return new Appointment(date, timeWindow, note, Appointment.State.BOOKED, mapBooking(results, group, start));
+        }
+    }
+
+    private static class StudentMapper extends AppointmentMapper {
+        private final int stateCode;
+
+        private StudentMapper(ResultSet results, IntFunction<Group> groups) throws SQLException {
+            super(results, groups);
+            stateCode = results.findColumn("StateCode");
+        }
+
+        @Override
+        Appointment mapState(ResultSet results, LocalDate date, TimeWindow timeWindow, String note)
+                throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+            int code = results.getInt(stateCode);
+
+            if (code == 0) {
+                return new Appointment(date, timeWindow, note, Appointment.State.FREE);
+            }
+
+            Appointment.State state = code == 2 ? Appointment.State.BOOKED : Appointment.State.RESERVED;
+            int number = results.getInt(groupNumber);
+
+            if (results.wasNull()) {
+                return Appointment.takenByOtherGroup(date, timeWindow, note, state);
+            }
+
+            Group group = group(number);
+
+            if (state == Appointment.State.RESERVED) {
+                return new Appointment(date, timeWindow, note, state, new Reservation(group));
+            }
+
+            return new Appointment(date, timeWindow, note, state, mapBooking(results, group, getBookingStart(results)));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package repository;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs repository calls on a dedicated, bounded executor and returns their results as CompletableFutures
+ *
+ * This keeps blocking database I/O away from the calling thread, e.g. the JavaFX application thread.
+ */
+public class AsyncRepository {
+    /**
+     * A call to the repository, usually through the models, which produces a result
+     *
+     * @param <T> the type of the result
+     */
+    @FunctionalInterface
+    public interface RepositoryCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * A call to the repository, usually through the models, without a result
+     */
+    @FunctionalInterface
+    public interface RepositoryAction {
+        void run() throws Exception;
+    }
+
+    private static final int THREADS = 4;
+    private static final int QUEUE_CAPACITY = 64;
+
+    private static final ExecutorService executor = createExecutor();
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger threadCount = new AtomicInteger();
+
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), runnable -> {
+            Thread thread = new Thread(runnable, "AsyncRepository-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+
+        return threadPoolExecutor;
+    }
+
+    /**
+     * Runs a repository call with a result in the background
+     *
+     * @param call the call to run
+     * @param <T>  the type of the result
+     * @return a future completed with the call's result, or exceptionally with the exception it threw
+     */
+    public static <T> CompletableFuture<T> supply(RepositoryCall<T> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.call());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+
+        return future;
+    }
+
+    /**
+     * Runs a repository call without a result in the background
+     *
+     * @param action the call to run
+     * @return a future completed when the call is done, or exceptionally with the exception it threw
+     */
+    public static CompletableFuture<Void> run(RepositoryAction action) {
+        return supply(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Gets the exception thrown by a repository call from the exception a future completed with
+     *
+     * @param throwable the exception passed to a completion handler
+     * @return the exception thrown by the call itself
+     */
+    public static Throwable unwrap(Throwable throwable) {
+        if ((throwable instanceof CompletionException || throwable instanceof ExecutionException)
+                && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+}
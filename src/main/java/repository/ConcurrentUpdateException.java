@@ -0,0 +1,21 @@
+package repository;
+
+import java.sql.SQLException;
+
+/**
+ * An Exception thrown by the Repository if a row was changed by someone else since it was loaded
+ *
+ * Nothing of the update is written. The current data can be fetched again and the change retried on it.
+ */
+public class ConcurrentUpdateException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a ConcurrentUpdateException
+     *
+     * @param message a description of the outdated row
+     */
+    public ConcurrentUpdateException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,333 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of JDBC connections configured by the db.properties
+ *
+ * Connections are validated when they are checked out and closed again after they have been idle
+ * for longer than the configured idle timeout, as long as more than the minimum number of connections are open.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String username;
+    private final String password;
+
+    private final int minSize;
+    private final int maxSize;
+    private final long checkoutTimeout;
+    private final long idleTimeout;
+    private final int validationTimeout;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idleConnections = new LinkedBlockingDeque<>();
+    private final Semaphore permits;
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    private final AtomicLong createdConnections = new AtomicLong();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong checkoutTimeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final StatementCacheStatistics statementCacheStatistics = new StatementCacheStatistics();
+    private final ResourceLeakDetector leakDetector;
+    private final ScheduledExecutorService evictor;
+    private volatile boolean closed = false;
+
+    /**
+     * Creates the pool and opens the minimum number of connections
+     *
+     * @param properties the database configuration containing DB_URL, DB_USERNAME, DB_PASSWORD and
+     *                   optionally the DB_POOL_*, DB_STATEMENT_CACHE_SIZE and DB_LEAK_DETECTION settings
+     * @throws SQLException if the initial connections can't be opened
+     */
+    ConnectionPool(Properties properties) throws SQLException {
+        url = properties.getProperty("DB_URL");
+        username = properties.getProperty("DB_USERNAME");
+        password = properties.getProperty("DB_PASSWORD");
+
+        maxSize = Math.max(1, intProperty(properties, "DB_POOL_MAX_SIZE", 4));
+        minSize = Math.min(maxSize, Math.max(0, intProperty(properties, "DB_POOL_MIN_SIZE", 1)));
+        checkoutTimeout = intProperty(properties, "DB_POOL_CHECKOUT_TIMEOUT", 10000);
+        idleTimeout = intProperty(properties, "DB_POOL_IDLE_TIMEOUT", 300000);
+        validationTimeout = intProperty(properties, "DB_POOL_VALIDATION_TIMEOUT", 2);
+        statementCacheSize = Math.max(1, intProperty(properties, "DB_STATEMENT_CACHE_SIZE", 32));
+        leakDetector = new ResourceLeakDetector(Boolean.parseBoolean(
+                properties.getProperty("DB_LEAK_DETECTION", "false").trim()));
+
+        permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idleConnections.offerLast(open());
+        }
+
+        if (idleTimeout > 0) {
+            evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "ConnectionPool-evictor");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long interval = Math.max(1000, idleTimeout / 2);
+            evictor.scheduleWithFixedDelay(this::evictIdleConnections, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            evictor = null;
+        }
+    }
+
+    /**
+     * Checks out a connection, waiting up to the checkout timeout if all connections are in use
+     *
+     * The connection is returned to the pool by closing the PooledConnection.
+     *
+     * @return a valid connection
+     * @throws SQLException if no connection becomes available in time or a new connection can't be opened
+     */
+    PooledConnection acquire() throws SQLException {
+        if (closed) throw new SQLException("The connection pool is closed");
+
+        try {
+            if (!permits.tryAcquire(checkoutTimeout, TimeUnit.MILLISECONDS)) {
+                checkoutTimeouts.incrementAndGet();
+                throw new SQLException("Timed out waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pooledConnection;
+            while ((pooledConnection = idleConnections.pollFirst()) != null) {
+                if (pooledConnection.getConnection().isValid(validationTimeout)) {
+                    return checkOut(pooledConnection);
+                }
+                validationFailures.incrementAndGet();
+                discard(pooledConnection);
+            }
+
+            return checkOut(open());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    private PooledConnection checkOut(PooledConnection pooledConnection) {
+        checkouts.incrementAndGet();
+        leakDetector.recordCheckout(pooledConnection);
+        pooledConnection.markCheckedOut();
+        return pooledConnection;
+    }
+
+    /**
+     * Returns a checked out connection to the pool, called once per checkout by PooledConnection.close()
+     *
+     * The resources used during the checkout are released first.
+     * Connections that were closed or left in a transaction are discarded.
+     *
+     * @param pooledConnection the connection to return
+     * @throws ResourceLeakException in debug mode, if a ResultSet was left open, after the connection was returned
+     */
+    void release(PooledConnection pooledConnection) throws ResourceLeakException {
+        ResourceLeakException leak = pooledConnection.releaseResources(leakDetector);
+        leakDetector.recordRelease(pooledConnection);
+
+        try {
+            Connection connection = pooledConnection.getConnection();
+            if (closed || connection.isClosed() || !connection.getAutoCommit()) {
+                discard(pooledConnection);
+            } else {
+                pooledConnection.markReleased();
+                idleConnections.offerFirst(pooledConnection);
+            }
+        } catch (SQLException e) {
+            discard(pooledConnection);
+        } finally {
+            permits.release();
+        }
+
+        if (leak != null) throw leak;
+    }
+
+    /**
+     * Closes connections which have been idle for longer than the idle timeout, keeping at least the minimum size open
+     */
+    void evictIdleConnections() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idleConnections.descendingIterator();
+
+        while (iterator.hasNext() && openConnections.get() > minSize) {
+            PooledConnection pooledConnection = iterator.next();
+            if (now - pooledConnection.getLastReleased() < idleTimeout) break;
+
+            if (idleConnections.removeLastOccurrence(pooledConnection)) {
+                evictions.incrementAndGet();
+                discard(pooledConnection);
+            }
+        }
+    }
+
+    /**
+     * Stops the eviction of idle connections and closes the idle connections
+     *
+     * Connections still checked out are closed when they are returned, later checkouts fail.
+     */
+    public void close() {
+        closed = true;
+        if (evictor != null) evictor.shutdownNow();
+
+        PooledConnection pooledConnection;
+        while ((pooledConnection = idleConnections.pollFirst()) != null) {
+            discard(pooledConnection);
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, username, password);
+        openConnections.incrementAndGet();
+        createdConnections.incrementAndGet();
+        return new PooledConnection(this, connection,
+                new StatementCache(connection, statementCacheSize, statementCacheStatistics, leakDetector));
+    }
+
+    private void discard(PooledConnection pooledConnection) {
+        openConnections.decrementAndGet();
+        try {
+            pooledConnection.closeConnection();
+        } catch (SQLException e) {
+            // The connection is dropped either way
+        }
+    }
+
+    /**
+     * Reads an optional integer property
+     *
+     * @param properties   the configuration
+     * @param key          the key of the property
+     * @param defaultValue the value used if the property is missing or empty
+     * @return the value of the property
+     */
+    static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value == null || value.trim().isEmpty() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    /**
+     * Gets the configured minimum number of open connections
+     *
+     * @return the minimum pool size
+     */
+    public int getMinSize() {
+        return minSize;
+    }
+
+    /**
+     * Gets the configured maximum number of open connections
+     *
+     * @return the maximum pool size
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of currently open connections, checked out or idle
+     *
+     * @return the number of open connections
+     */
+    public int getOpenConnections() {
+        return openConnections.get();
+    }
+
+    /**
+     * Gets the number of idle connections
+     *
+     * @return the number of connections waiting in the pool
+     */
+    public int getIdleConnections() {
+        return idleConnections.size();
+    }
+
+    /**
+     * Gets the number of checked out connections
+     *
+     * @return the number of connections currently in use
+     */
+    public int getActiveConnections() {
+        return maxSize - permits.availablePermits();
+    }
+
+    /**
+     * Gets the number of connections opened since the pool was created
+     *
+     * @return the number of created connections
+     */
+    public long getCreatedConnections() {
+        return createdConnections.get();
+    }
+
+    /**
+     * Gets the number of successful checkouts
+     *
+     * @return the number of checkouts
+     */
+    public long getCheckouts() {
+        return checkouts.get();
+    }
+
+    /**
+     * Gets the number of checkouts which timed out because all connections were in use
+     *
+     * @return the number of checkout timeouts
+     */
+    public long getCheckoutTimeouts() {
+        return checkoutTimeouts.get();
+    }
+
+    /**
+     * Gets the number of idle connections that were discarded because they failed validation
+     *
+     * @return the number of validation failures
+     */
+    public long getValidationFailures() {
+        return validationFailures.get();
+    }
+
+    /**
+     * Gets the combined statistics of the statement caches of all connections
+     *
+     * @return the statement cache statistics
+     */
+    public StatementCacheStatistics getStatementCacheStatistics() {
+        return statementCacheStatistics;
+    }
+
+    /**
+     * Gets the counters of the open JDBC resources and leaked ResultSets
+     *
+     * @return the leak detector of the pool
+     */
+    public ResourceLeakDetector getLeakDetector() {
+        return leakDetector;
+    }
+
+    /**
+     * Gets the number of connections closed because they were idle for too long
+     *
+     * @return the number of evicted connections
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -9,11 +9,32 @@ import java.sql.Date;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class DBRepository implements Repository {
+    /**
+     * Work executed on a single connection inside a transaction
+     *
+     * @param <T> the type of the work's result
+     */
+    private interface Transaction<T> {
+        T execute(PooledConnection connection) throws SQLException;
+    }
+
+    /**
+     * Creates the mapper for the result set of an appointment query
+     */
+    private interface MapperFactory {
+        AppointmentMapper create(ResultSet results) throws SQLException;
+    }
+
+    private static final int APPOINTMENT_PAGE_SIZE = 200;
 
-public class DBRepository {
     private static DBRepository instance = null;
 
-    private Connection connection;
+    private ConnectionPool pool;
+    private final int fetchSize;
+    private final Map<Integer, Group> groupIdentities = new ConcurrentHashMap<>();
 
     /**
      * Gets the singleton instance of DBRepository
@@ -21,7 +42,7 @@ public class DBRepository {
      * @return singleton instance of DBRepository
      * @throws RepositoryConnectionException if the connection to the database fails
      */
-    public static DBRepository getInstance() throws RepositoryConnectionException {
+    public static synchronized DBRepository getInstance() throws RepositoryConnectionException {
         try {
             if (instance == null) {
                 instance = new DBRepository();
@@ -33,25 +54,207 @@ public class DBRepository {
     }
 
     /**
-     * Connects to the database as specified in the db.properties
+     * Sets up the connection pool for the database specified in the db.properties
      *
      * @throws SQLException           if the connection fails
      * @throws ClassNotFoundException if the JDBC driver class can't be found
      * @throws IOException            if the configuration file can't be loaded
      */
     private DBRepository() throws SQLException, ClassNotFoundException, IOException {
-        Properties properties = new Properties();
-        InputStream propertiesFile = getClass().getResourceAsStream("/db.properties");
-        properties.load(propertiesFile);
-        propertiesFile.close();
+        this(loadProperties());
+    }
 
+    /**
+     * Sets up the connection pool for the database specified in the properties, e.g. an embedded test database
+     *
+     * @param properties the database configuration with the keys of the db.properties
+     * @throws SQLException           if the connection fails
+     * @throws ClassNotFoundException if the JDBC driver class can't be found
+     */
+    DBRepository(Properties properties) throws SQLException, ClassNotFoundException {
         Class.forName(properties.getProperty("DB_DRIVER_CLASS"));
 
-        connection = DriverManager.getConnection(
-                properties.getProperty("DB_URL"),
-                properties.getProperty("DB_USERNAME"),
-                properties.getProperty("DB_PASSWORD")
-        );
+        pool = new ConnectionPool(properties);
+        fetchSize = Math.max(1, ConnectionPool.intProperty(properties, "DB_FETCH_SIZE", APPOINTMENT_PAGE_SIZE));
+    }
+
+    private static Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+
+        try (InputStream propertiesFile = DBRepository.class.getResourceAsStream("/db.properties")) {
+            properties.load(propertiesFile);
+        }
+
+        return properties;
+    }
+
+    /**
+     * Gets the connection pool, e.g. to read its metrics
+     *
+     * @return the repository's connection pool
+     */
+    public ConnectionPool getConnectionPool() {
+        return pool;
+    }
+
+    /**
+     * Gets the version of the schedule, which is incremented by every change to Appointments, Reservations,
+     * Bookings and Groups
+     *
+     * Reading the version is much cheaper than reading the schedule, so it can be used to revalidate cached data.
+     *
+     * @return the current schedule version
+     * @throws SQLException if an SQL error occurs
+     */
+    @Override
+    public long getScheduleVersion() throws SQLException {
+        final String query = "SELECT Version FROM ScheduleVersion";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            try (ResultSet results = statement.executeQuery()) {
+                return results.next() ? results.getLong("Version") : 0;
+            }
+        }
+    }
+
+    /**
+     * Increments the schedule version as part of a changing transaction
+     *
+     * Must be the first statement of the transaction, see logChange.
+     *
+     * @param connection the pooled connection of the transaction
+     * @throws SQLException if an SQL error occurs
+     */
+    private void incrementScheduleVersion(PooledConnection connection) throws SQLException {
+        connection.prepare("UPDATE ScheduleVersion SET Version = Version + 1;").execute();
+    }
+
+    /**
+     * Appends a change to the change log as part of a changing transaction
+     *
+     * The schedule version must be incremented first: its row stays locked until the transaction ends,
+     * so changing transactions are serialized and the change log sequence is committed in ascending order.
+     *
+     * @param connection      the pooled connection of the transaction
+     * @param kind            the kind of the change
+     * @param appointmentDate the date of the changed Appointment, or null
+     * @param groupNumber     the number of the changed Group, or null
+     * @throws SQLException if an SQL error occurs
+     */
+    private void logChange(PooledConnection connection, ScheduleChange.Kind kind, LocalDate appointmentDate,
+                           Integer groupNumber) throws SQLException {
+        PreparedStatement statement = connection.prepare("INSERT INTO ChangeLog (Kind, AppointmentDate, GroupNumber) VALUES (?, ?, ?);");
+
+        statement.setString(1, kind.name());
+        statement.setDate(2, appointmentDate == null ? null : Date.valueOf(appointmentDate));
+        if (groupNumber == null) {
+            statement.setNull(3, Types.INTEGER);
+        } else {
+            statement.setInt(3, groupNumber);
+        }
+
+        statement.execute();
+    }
+
+    /**
+     * Appends a change of every Appointment reserved or booked by a group to the change log
+     *
+     * @param connection  the pooled connection of the transaction
+     * @param groupNumber the number of the group
+     * @throws SQLException if an SQL error occurs
+     */
+    private void logReservedAppointmentChanges(PooledConnection connection, int groupNumber) throws SQLException {
+        PreparedStatement statement = connection.prepare("INSERT INTO ChangeLog (Kind, AppointmentDate)\n" +
+                "SELECT ?, Appointment FROM Reservation WHERE Groups = ?;");
+
+        statement.setString(1, ScheduleChange.Kind.APPOINTMENT.name());
+        statement.setInt(2, groupNumber);
+
+        statement.execute();
+    }
+
+    /**
+     * Gets the sequence number of the latest change in the change log
+     *
+     * @return the latest sequence number, or 0 if the change log is empty
+     * @throws SQLException if an SQL error occurs
+     */
+    @Override
+    public long getLatestChangeSequence() throws SQLException {
+        final String query = "SELECT COALESCE(MAX(Sequence), 0) AS Sequence FROM ChangeLog";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            try (ResultSet results = statement.executeQuery()) {
+                return results.next() ? results.getLong("Sequence") : 0;
+            }
+        }
+    }
+
+    /**
+     * Gets the changes logged after a sequence number
+     *
+     * @param sequence the sequence number of the last change already known
+     * @return the later changes in ascending order
+     * @throws SQLException if an SQL error occurs
+     */
+    @Override
+    public List<ScheduleChange> getChangesAfter(long sequence) throws SQLException {
+        final String query = "SELECT Sequence, Kind, AppointmentDate, GroupNumber FROM ChangeLog\n" +
+                "WHERE Sequence > ?\n" +
+                "ORDER BY Sequence;";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            statement.setLong(1, sequence);
+
+            try (ResultSet results = statement.executeQuery()) {
+                List<ScheduleChange> changes = new ArrayList<>();
+
+                while (results.next()) {
+                    long changeSequence = results.getLong("Sequence");
+                    ScheduleChange.Kind kind = ScheduleChange.Kind.valueOf(results.getString("Kind"));
+                    Date appointmentDate = results.getDate("AppointmentDate");
+                    int groupNumber = results.getInt("GroupNumber");
+                    Integer group = results.wasNull() ? null : groupNumber;
+
+                    changes.add(new ScheduleChange(changeSequence, kind,
+                            appointmentDate == null ? null : appointmentDate.toLocalDate(), group));
+                }
+
+                return changes;
+            }
+        }
+    }
+
+    /**
+     * Executes work on a pooled connection in a single transaction, which is rolled back if the work fails
+     *
+     * @param transaction the work to execute
+     * @param <T>         the type of the work's result
+     * @return the result of the work
+     * @throws SQLException if an SQL error occurs, after the transaction was rolled back
+     */
+    private <T> T inTransaction(Transaction<T> transaction) throws SQLException {
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            Connection connection = pooledConnection.getConnection();
+            connection.setAutoCommit(false);
+
+            try {
+                T result = transaction.execute(pooledConnection);
+                connection.commit();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
     }
 
     /**
@@ -60,111 +263,287 @@ public class DBRepository {
      * @return A list of all groups
      * @throws SQLException if SQL Execution fails
      */
+    @Override
     public List<Group> getGroups() throws SQLException {
         final String query = "SELECT GroupNumber FROM Groups";
-        Statement statement = connection.createStatement();
 
-        ResultSet results = statement.executeQuery(query);
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            try (ResultSet results = statement.executeQuery()) {
+                ArrayList<Group> groups = new ArrayList<>();
+
+                while (results.next()) {
+                    groups.add(toGroup(results.getInt("GroupNumber")));
+                }
+
+                return groups;
+            }
+        }
+    }
+
+    /**
+     * Gets all groups together with their reservation and booking status in a single query
+     *
+     * @return the status of every group, ordered by group number
+     * @throws SQLException if SQL Execution fails
+     */
+    @Override
+    public Map<Group, GroupStatus> getGroupStatuses() throws SQLException {
+        final String query = "SELECT G.GroupNumber, R.Groups AS Reserved, B.Reservation AS Booked\n" +
+                "FROM Groups G\n" +
+                "LEFT JOIN Reservation R on G.GroupNumber = R.Groups\n" +
+                "LEFT JOIN Booking B on R.Groups = B.Reservation\n" +
+                "ORDER BY G.GroupNumber;";
 
-        ArrayList<Group> groups = new ArrayList<>();
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
 
-        while (results.next()) {
-            int groupNumber = results.getInt("GroupNumber");
+            try (ResultSet results = statement.executeQuery()) {
+                Map<Group, GroupStatus> statuses = new LinkedHashMap<>();
 
-            Group group = new Group(groupNumber);
+                while (results.next()) {
+                    Group group = toGroup(results.getInt("GroupNumber"));
 
-            groups.add(group);
+                    results.getInt("Reserved");
+                    boolean hasReservation = !results.wasNull();
+
+                    results.getInt("Booked");
+                    boolean hasBooking = !results.wasNull();
+
+                    GroupStatus status = hasBooking ? GroupStatus.BOOKED :
+                            hasReservation ? GroupStatus.RESERVED : GroupStatus.NONE;
+
+                    statuses.merge(group, status, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+                }
+
+                return statuses;
+            }
         }
+    }
 
-        return groups;
+    /**
+     * Gets the Appointments within a range of dates, ordered by date
+     *
+     * The rows are read in pages of APPOINTMENT_PAGE_SIZE continuing after the date of the last row read, so the cost
+     * only depends on the size of the range. Rows of the same date are collapsed into a single Appointment.
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the Appointments from from to to, both inclusive
+     * @throws SQLException                     if SQL execution fails
+     * @throws InvalidAppointmentStateException if an appointment has an invalid state
+     * @throws InvalidTimeWindowException       if an appointment's or booking's time window is invalid
+     */
+    @Override
+    public List<Appointment> getAppointments(LocalDate from, LocalDate to) throws SQLException,
+            InvalidAppointmentStateException, InvalidTimeWindowException {
+        final String query = "SELECT A.Date, A.Activated, A.StartTime, A.EndTime, A.Note, A.Version,\n" +
+                "R.Groups, B.StartTime AS BookStart, B.EndTime AS BookEnd, B.Room, B.Version AS BookingVersion\n" +
+                "FROM Appointment A\n" +
+                "LEFT JOIN Reservation R on A.Date = R.Appointment\n" +
+                "LEFT JOIN Booking B on R.Groups = B.Reservation\n" +
+                "WHERE A.Date > ? AND A.Date <= ?\n" +
+                "ORDER BY A.Date\n" +
+                "OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY;";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            return readAppointmentPages(pooledConnection.prepare(query), 1, from, to,
+                    results -> AppointmentMapper.forSchedule(results, this::toGroup));
+        }
     }
 
     /**
-     * Gets all appintments from the database
+     * Gets the activated Appointments within a range of dates as shown to a student, ordered by date
      *
-     * @return A list of all appointments
+     * Appointments reserved or booked by other groups are read as a state code only, without the group or the
+     * booking details. Only the reservation or booking of the student's own group is read completely.
+     * The rows are read in pages like the ones of getAppointments.
+     *
+     * @param from        the first date of the range
+     * @param to          the last date of the range
+     * @param groupNumber the number of the student's group
+     * @return the activated Appointments from from to to, both inclusive
      * @throws SQLException                     if SQL execution fails
      * @throws InvalidAppointmentStateException if an appointment has an invalid state
      * @throws InvalidTimeWindowException       if an appointment's or booking's time window is invalid
      */
-    public List<Appointment> getAppointments() throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
-        final String query = "SELECT A.Date, A.Activated, A.StartTime, A.EndTime, A.Note,\n" +
-                "R.Groups, B.StartTime AS BookStart, B.EndTime AS BookEnd, B.Room\n" +
+    @Override
+    public List<Appointment> getStudentAppointments(LocalDate from, LocalDate to, int groupNumber)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+        final String query = "SELECT A.Date, A.StartTime, A.EndTime, A.Note, A.Version,\n" +
+                "CASE WHEN R.Groups IS NULL THEN 0\n" +
+                "WHEN EXISTS (SELECT * FROM Booking WHERE Reservation = R.Groups) THEN 2 ELSE 1 END AS StateCode,\n" +
+                "CASE WHEN R.Groups = ? THEN R.Groups END AS Groups,\n" +
+                "B.StartTime AS BookStart, B.EndTime AS BookEnd, B.Room, B.Version AS BookingVersion\n" +
                 "FROM Appointment A\n" +
                 "LEFT JOIN Reservation R on A.Date = R.Appointment\n" +
-                "LEFT JOIN Booking B on R.Groups = B.Reservation;";
-        Statement statement = connection.createStatement();
+                "LEFT JOIN Booking B on R.Groups = B.Reservation AND B.Reservation = ?\n" +
+                "WHERE A.Activated = 1 AND A.Date > ? AND A.Date <= ?\n" +
+                "ORDER BY A.Date\n" +
+                "OFFSET 0 ROWS FETCH NEXT ? ROWS ONLY;";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            statement.setInt(1, groupNumber);
+            statement.setInt(2, groupNumber);
+
+            return readAppointmentPages(statement, 3, from, to,
+                    results -> AppointmentMapper.forStudent(results, this::toGroup));
+        }
+    }
 
-        ResultSet results = statement.executeQuery(query);
+    /**
+     * Reads the Appointments of a range of dates in pages of APPOINTMENT_PAGE_SIZE, each continuing after the date
+     * of the last complete Appointment read
+     *
+     * The rows are streamed with the configured fetch size. The mapper is created for the first page only,
+     * as all pages share the columns of the statement. As the rows of the last date of a full page may continue
+     * on the next page, its Appointment is dropped and read again with the next page.
+     *
+     * @param statement      the prepared appointment query, ordered by date and limited to a page
+     * @param rangeParameter the index of the three parameters for the date to continue after, the last date
+     *                       of the range and the page size
+     * @param from           the first date of the range
+     * @param to             the last date of the range
+     * @param mapperFactory  creates the mapper for the rows of the query
+     * @return the Appointments of all pages
+     * @throws SQLException                     if SQL execution fails
+     * @throws InvalidAppointmentStateException if an appointment has an invalid state
+     * @throws InvalidTimeWindowException       if an appointment's or booking's time window is invalid
+     */
+    private List<Appointment> readAppointmentPages(PreparedStatement statement, int rangeParameter,
+                                                   LocalDate from, LocalDate to, MapperFactory mapperFactory)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+        statement.setFetchSize(fetchSize);
 
         ArrayList<Appointment> appointments = new ArrayList<>();
+        AppointmentMapper mapper = null;
+        LocalDate after = from.minusDays(1);
+        boolean fullPage;
 
-        while (results.next()) {
-            LocalDate date = results.getDate("Date").toLocalDate();
-            boolean active = results.getBoolean("Activated");
-            LocalTime startTime = results.getTime("StartTime").toLocalTime();
-            LocalTime endTime = results.getTime("EndTime").toLocalTime();
-            TimeWindow timeWindow = new TimeWindow(startTime, endTime);
-            String note = results.getString("Note");
-
-            int groupNo = results.getInt("Groups");
-            boolean hasReservation = !results.wasNull();
-            Group group = (results.wasNull()) ? null : new Group(groupNo);
-
-            Time bookStartSQL = results.getTime("BookStart");
-            boolean hasBooking = !results.wasNull();
-            LocalTime bookingStart = results.wasNull() ? null : bookStartSQL.toLocalTime();
-
-            Time bookEndSQL = results.getTime("BookEnd");
-            LocalTime bookingEnd = (results.wasNull()) ? null : bookEndSQL.toLocalTime();
-
-            TimeWindow bookingWindow = new TimeWindow(bookingStart, bookingEnd);
-
-            String room = results.getString("Room");
-
-            Appointment.State state;
-
-            Appointment appointment;
-
-            if (!active) {
-                state = Appointment.State.DEACTIVATED;
-                appointment = new Appointment(date, timeWindow, note, state);
-            } else {
-                if (hasReservation) {
-                    if (hasBooking) {
-                        state = Appointment.State.BOOKED;
-                        Booking booking = new Booking(group, bookingWindow, room);
-                        appointment = new Appointment(date, timeWindow, note, state, booking);
-                    } else {
-                        state = Appointment.State.RESERVED;
-                        Reservation reservation = new Reservation(group);
-                        appointment = new Appointment(date, timeWindow, note, state, reservation);
-                    }
-                } else {
-                    state = Appointment.State.FREE;
-                    appointment = new Appointment(date, timeWindow, note, state);
-                }
+        do {
+            statement.setDate(rangeParameter, Date.valueOf(after));
+            statement.setDate(rangeParameter + 1, Date.valueOf(to));
+            statement.setInt(rangeParameter + 2, APPOINTMENT_PAGE_SIZE);
+
+            List<Appointment> page;
+
+            try (ResultSet results = statement.executeQuery()) {
+                if (mapper == null) mapper = mapperFactory.create(results);
+
+                page = mapper.mapAll(results);
+                fullPage = mapper.getRowCount() == APPOINTMENT_PAGE_SIZE;
             }
 
-            appointments.add(appointment);
-        }
+            if (fullPage && page.size() > 1) page.remove(page.size() - 1);
+            if (page.isEmpty()) break;
+
+            appointments.addAll(page);
+            after = page.get(page.size() - 1).getDate();
+        } while (fullPage);
 
         return appointments;
     }
 
     /**
-     * Deletes the an appointment and, if present, its reservation or booking
+     * Finds the date the schedule should be shown from
      *
-     * @param appointment the appointment to be deleted from the database
-     * @throws SQLException if an SQL error occurs
+     * @param date the current date
+     * @return the date of the first Appointment on or after the date, the date of the last Appointment
+     * if all of them are earlier, or an empty Optional if there are no Appointments
+     * @throws SQLException if SQL execution fails
      */
-    private void deleteAppointment(Appointment appointment) throws SQLException {
-        String query = "DELETE FROM Appointment WHERE Date = ?";
-        PreparedStatement statement = connection.prepareStatement(query);
+    @Override
+    public Optional<LocalDate> findScheduleDate(LocalDate date) throws SQLException {
+        final String query = "SELECT COALESCE(MIN(CASE WHEN Date >= ? THEN Date END), MAX(Date)) AS ScheduleDate\n" +
+                "FROM Appointment;";
 
-        statement.setDate(1, Date.valueOf(appointment.getDate()));
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
 
-        statement.execute();
+            statement.setDate(1, Date.valueOf(date));
+
+            try (ResultSet results = statement.executeQuery()) {
+                Date scheduleDate = results.next() ? results.getDate("ScheduleDate") : null;
+
+                return scheduleDate == null ? Optional.empty() : Optional.of(scheduleDate.toLocalDate());
+            }
+        }
+    }
+
+    /**
+     * Gets a single Appointment
+     *
+     * @param date the date of the Appointment
+     * @return the Appointment, or an empty Optional if there is no Appointment on the date
+     * @throws SQLException                     if SQL execution fails
+     * @throws InvalidAppointmentStateException if the appointment has an invalid state
+     * @throws InvalidTimeWindowException       if the appointment's or booking's time window is invalid
+     */
+    @Override
+    public Optional<Appointment> getAppointment(LocalDate date) throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+        final String query = "SELECT A.Date, A.Activated, A.StartTime, A.EndTime, A.Note, A.Version,\n" +
+                "R.Groups, B.StartTime AS BookStart, B.EndTime AS BookEnd, B.Room, B.Version AS BookingVersion\n" +
+                "FROM Appointment A\n" +
+                "LEFT JOIN Reservation R on A.Date = R.Appointment\n" +
+                "LEFT JOIN Booking B on R.Groups = B.Reservation\n" +
+                "WHERE A.Date = ?;";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            statement.setDate(1, Date.valueOf(date));
+
+            try (ResultSet results = statement.executeQuery()) {
+                List<Appointment> appointments = AppointmentMapper.forSchedule(results, this::toGroup).mapAll(results);
+
+                return appointments.isEmpty() ? Optional.empty() : Optional.of(appointments.get(0));
+            }
+        }
+    }
+
+    /**
+     * Gets the Appointment reserved or booked by a group
+     *
+     * @param groupNumber the number of the group
+     * @return the Appointment booked or reserved by the group, or an empty Optional if there is none
+     * @throws SQLException                     if SQL execution fails
+     * @throws InvalidAppointmentStateException if the appointment has an invalid state
+     * @throws InvalidTimeWindowException       if the appointment's or booking's time window is invalid
+     */
+    @Override
+    public Optional<Appointment> findAppointmentForGroup(int groupNumber) throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+        final String query = "SELECT A.Date, A.Activated, A.StartTime, A.EndTime, A.Note, A.Version,\n" +
+                "R.Groups, B.StartTime AS BookStart, B.EndTime AS BookEnd, B.Room, B.Version AS BookingVersion\n" +
+                "FROM Reservation R\n" +
+                "JOIN Appointment A on A.Date = R.Appointment\n" +
+                "LEFT JOIN Booking B on R.Groups = B.Reservation\n" +
+                "WHERE R.Groups = ?;";
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement statement = pooledConnection.prepare(query);
+
+            statement.setInt(1, groupNumber);
+
+            try (ResultSet results = statement.executeQuery()) {
+                return AppointmentMapper.forSchedule(results, this::toGroup).mapAll(results).stream()
+                        .filter(appointment -> appointment.getState() == Appointment.State.BOOKED ||
+                                appointment.getState() == Appointment.State.RESERVED)
+                        .findFirst();
+            }
+        }
+    }
+
+    /**
+     * Gets the Group with a number from the identity map of the repository, so all rows of a group share one instance
+     *
+     * @param groupNumber the number of the group
+     * @return the Group
+     */
+    private Group toGroup(int groupNumber) {
+        return groupIdentities.computeIfAbsent(groupNumber, Group::new);
     }
 
     /**
@@ -173,23 +552,71 @@ public class DBRepository {
      * @param group the group to be deleted
      * @throws SQLException if an SQL error occurs
      */
+    @Override
     public void deleteGroup(Group group) throws SQLException {
         String query = "DELETE FROM Groups WHERE GroupNumber = ?";
-        PreparedStatement statement = connection.prepareStatement(query);
 
-        statement.setInt(1, group.getNumber());
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logReservedAppointmentChanges(connection, group.getNumber());
+            logChange(connection, ScheduleChange.Kind.GROUP, null, group.getNumber());
+            incrementReservedAppointmentVersions(connection, group.getNumber());
 
-        statement.execute();
+            PreparedStatement statement = connection.prepare(query);
+
+            statement.setInt(1, group.getNumber());
+
+            statement.execute();
+
+            return null;
+        });
     }
 
     /**
-     * Deletes all Appointments from the database, including their Reservations and Bookings
+     * Deletes the Appointments within a range of dates, including their Reservations and Bookings
      *
+     * @param from the first date of the range
+     * @param to   the last date of the range
      * @throws SQLException if an SQL error occurs
      */
-    public void deleteAllAppointments() throws SQLException {
-        String query = "DELETE FROM Appointment;";
-        PreparedStatement statement = connection.prepareStatement(query);
+    @Override
+    public void deleteAppointments(LocalDate from, LocalDate to) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.SCHEDULE, null, null);
+
+            deleteAppointments(connection, from, to);
+
+            return null;
+        });
+    }
+
+    /**
+     * Deletes the Appointments within a range of dates, including their Reservations and Bookings
+     *
+     * Bookings reference the group rather than the Reservation, so they are not removed by the cascade from
+     * Appointment to Reservation and are deleted first.
+     *
+     * @param connection the pooled connection to execute the statements on
+     * @param from       the first date of the range
+     * @param to         the last date of the range
+     * @throws SQLException if an SQL error occurs
+     */
+    private void deleteAppointments(PooledConnection connection, LocalDate from, LocalDate to) throws SQLException {
+        String bookingQuery = "DELETE FROM Booking WHERE Reservation IN " +
+                "(SELECT Groups FROM Reservation WHERE Appointment >= ? AND Appointment <= ?);";
+        PreparedStatement bookingStatement = connection.prepare(bookingQuery);
+
+        bookingStatement.setDate(1, Date.valueOf(from));
+        bookingStatement.setDate(2, Date.valueOf(to));
+
+        bookingStatement.execute();
+
+        String query = "DELETE FROM Appointment WHERE Date >= ? AND Date <= ?;";
+        PreparedStatement statement = connection.prepare(query);
+
+        statement.setDate(1, Date.valueOf(from));
+        statement.setDate(2, Date.valueOf(to));
 
         statement.execute();
     }
@@ -199,9 +626,27 @@ public class DBRepository {
      *
      * @throws SQLException if an SQL error occurs
      */
+    @Override
     public void deleteAllGroups() throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.SCHEDULE, null, null);
+
+            deleteAllGroups(connection);
+
+            return null;
+        });
+    }
+
+    /**
+     * Deletes all Groups, including their Reservations and Bookings
+     *
+     * @param connection the pooled connection to execute the statement on
+     * @throws SQLException if an SQL error occurs
+     */
+    private void deleteAllGroups(PooledConnection connection) throws SQLException {
         String query = "DELETE FROM Groups;";
-        PreparedStatement statement = connection.prepareStatement(query);
+        PreparedStatement statement = connection.prepare(query);
 
         statement.execute();
     }
@@ -209,16 +654,17 @@ public class DBRepository {
     /**
      * Insert into table Reservation
      *
+     * @param connection  the pooled connection to execute the statement on
      * @param reservation the reservation to be inserted
-     * @param appointment the appointment of the reservation belongs to
+     * @param date        the date of the appointment the reservation belongs to
      * @throws SQLException if an SQL error occurs
      */
-    private void insertReservation(Reservation reservation, Appointment appointment) throws SQLException {
+    private void insertReservation(PooledConnection connection, Reservation reservation, LocalDate date) throws SQLException {
         String query = "INSERT INTO Reservation (Groups, Appointment) VALUES (?, ?)";
-        PreparedStatement statement = connection.prepareStatement(query);
+        PreparedStatement statement = connection.prepare(query);
 
         statement.setInt(1, reservation.getGroup().getNumber());
-        statement.setDate(2, Date.valueOf(appointment.getDate()));
+        statement.setDate(2, Date.valueOf(date));
 
         statement.execute();
     }
@@ -226,25 +672,30 @@ public class DBRepository {
     /**
      * Inserts into table Booking
      *
-     * @param booking The Booking to insert
+     * @param connection  the pooled connection to execute the statements on
+     * @param booking     The Booking to insert
      * @param appointment the Appointment the Reservation belongs to
      * @throws SQLException if an SQL error occurs
      */
-    private void insertBooking(Booking booking, Appointment appointment) throws SQLException {
+    private void insertBooking(PooledConnection connection, Booking booking, Appointment appointment) throws SQLException {
+        insertReservation(connection, new Reservation(booking.getGroup()), appointment.getDate());
+        insertBookingRow(connection, booking);
+    }
+
+    /**
+     * Inserts into table Booking for an existing Reservation
+     *
+     * @param connection the pooled connection to execute the statement on
+     * @param booking    The Booking to insert
+     * @throws SQLException if an SQL error occurs
+     */
+    private void insertBookingRow(PooledConnection connection, Booking booking) throws SQLException {
         TimeWindow timeWindow = booking.getTimeWindow();
         Time startTime = Time.valueOf(timeWindow.getStart());
         Time endTime = timeWindow.getEnd() == null ? null : Time.valueOf(timeWindow.getEnd());
 
-        String reservationQuery = "INSERT INTO Reservation (Groups, Appointment) VALUES (?, ?)";
-        PreparedStatement reservationStatement = connection.prepareStatement(reservationQuery);
-
-        reservationStatement.setInt(1, booking.getGroup().getNumber());
-        reservationStatement.setDate(2, Date.valueOf(appointment.getDate()));
-
-        reservationStatement.execute();
-
         String bookingQuery = "INSERT INTO Booking (Reservation, StartTime, EndTime, Room) VALUES (?, ?, ?, ?);";
-        PreparedStatement bookingStatement = connection.prepareStatement(bookingQuery);
+        PreparedStatement bookingStatement = connection.prepare(bookingQuery);
 
         bookingStatement.setInt(1, booking.getGroup().getNumber());
         bookingStatement.setTime(2, startTime);
@@ -260,9 +711,28 @@ public class DBRepository {
      * @param appointment the Appointment to be inserted
      * @throws SQLException if an SQL error occurs
      */
+    @Override
     public void insertAppointment(Appointment appointment) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.APPOINTMENT, appointment.getDate(), null);
+
+            insertAppointment(connection, appointment);
+
+            return null;
+        });
+    }
+
+    /**
+     * Inserts into the table Appointment, and, if applicable, into Reservation and Booking as well
+     *
+     * @param connection  the pooled connection to execute the statements on
+     * @param appointment the Appointment to be inserted
+     * @throws SQLException if an SQL error occurs
+     */
+    private void insertAppointment(PooledConnection connection, Appointment appointment) throws SQLException {
         String query = "INSERT INTO Appointment (Date, Activated, StartTime, EndTime, Note) VALUES (?, ?, ?, ?, ? );";
-        PreparedStatement statement = connection.prepareStatement(query);
+        PreparedStatement statement = connection.prepare(query);
 
         statement.setDate(1, Date.valueOf(appointment.getDate()));
         statement.setBoolean(2, (appointment.getState() != Appointment.State.DEACTIVATED));
@@ -273,12 +743,165 @@ public class DBRepository {
         statement.execute();
 
         if (appointment.getState() == Appointment.State.RESERVED) {
-            insertReservation(appointment.getReservation(), appointment);
+            insertReservation(connection, appointment.getReservation(), appointment.getDate());
         }
 
         if (appointment.getState() == Appointment.State.BOOKED) {
-            insertBooking(appointment.getBooking(), appointment);
+            insertBooking(connection, appointment.getBooking(), appointment);
+        }
+    }
+
+    /**
+     * Inserts a list of Appointments, including their Reservations and Bookings, in batches within one transaction
+     *
+     * @param appointments the Appointments to be inserted
+     * @throws SQLException if an SQL error occurs, in which case none of the Appointments are inserted
+     */
+    @Override
+    public void insertAppointments(List<Appointment> appointments) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.SCHEDULE, null, null);
+
+            insertAppointments(connection, appointments);
+
+            return null;
+        });
+    }
+
+    /**
+     * Replaces the Appointments within a range of dates by a list of Appointments, deleting the old ones including
+     * their Reservations and Bookings and inserting the new ones in batches within one transaction
+     *
+     * @param from         the first date of the range
+     * @param to           the last date of the range
+     * @param appointments the Appointments to be inserted
+     * @throws SQLException if an SQL error occurs, in which case nothing is deleted or inserted
+     */
+    @Override
+    public void replaceAppointments(LocalDate from, LocalDate to, List<Appointment> appointments) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.SCHEDULE, null, null);
+
+            deleteAppointments(connection, from, to);
+            insertAppointments(connection, appointments);
+
+            return null;
+        });
+    }
+
+    /**
+     * Inserts a list of Appointments, including their Reservations and Bookings, in batches
+     *
+     * @param connection   the pooled connection to execute the statements on
+     * @param appointments the Appointments to be inserted
+     * @throws SQLException if an SQL error occurs
+     */
+    private void insertAppointments(PooledConnection connection, List<Appointment> appointments) throws SQLException {
+        final String appointmentQuery = "INSERT INTO Appointment (Date, Activated, StartTime, EndTime, Note) VALUES (?, ?, ?, ?, ? );";
+        final String reservationQuery = "INSERT INTO Reservation (Groups, Appointment) VALUES (?, ?)";
+        final String bookingQuery = "INSERT INTO Booking (Reservation, StartTime, EndTime, Room) VALUES (?, ?, ?, ?);";
+
+        PreparedStatement appointmentStatement = connection.prepare(appointmentQuery);
+        PreparedStatement reservationStatement = connection.prepare(reservationQuery);
+        PreparedStatement bookingStatement = connection.prepare(bookingQuery);
+        boolean hasReservations = false;
+        boolean hasBookings = false;
+
+        for (Appointment appointment : appointments) {
+            appointmentStatement.setDate(1, Date.valueOf(appointment.getDate()));
+            appointmentStatement.setBoolean(2, (appointment.getState() != Appointment.State.DEACTIVATED));
+            appointmentStatement.setTime(3, Time.valueOf(appointment.getTimeWindow().getStart()));
+            appointmentStatement.setTime(4, Time.valueOf(appointment.getTimeWindow().getEnd()));
+            appointmentStatement.setString(5, appointment.getNote());
+            appointmentStatement.addBatch();
+
+            Group group = appointment.getState() == Appointment.State.RESERVED ? appointment.getReservation().getGroup() :
+                    appointment.getState() == Appointment.State.BOOKED ? appointment.getBooking().getGroup() : null;
+
+            if (group != null) {
+                reservationStatement.setInt(1, group.getNumber());
+                reservationStatement.setDate(2, Date.valueOf(appointment.getDate()));
+                reservationStatement.addBatch();
+                hasReservations = true;
+            }
+
+            if (appointment.getState() == Appointment.State.BOOKED) {
+                TimeWindow timeWindow = appointment.getBooking().getTimeWindow();
+
+                bookingStatement.setInt(1, group.getNumber());
+                bookingStatement.setTime(2, Time.valueOf(timeWindow.getStart()));
+                bookingStatement.setTime(3, timeWindow.getEnd() == null ? null : Time.valueOf(timeWindow.getEnd()));
+                bookingStatement.setString(4, appointment.getBooking().getRoom());
+                bookingStatement.addBatch();
+                hasBookings = true;
+            }
         }
+
+        appointmentStatement.executeBatch();
+        if (hasReservations) reservationStatement.executeBatch();
+        if (hasBookings) bookingStatement.executeBatch();
+    }
+
+    /**
+     * Inserts the groups with the numbers between from and to (inclusive) in a batch within one transaction
+     *
+     * @param from the number of the first group
+     * @param to   the number of the last group
+     * @throws SQLException if an SQL error occurs, in which case none of the groups are inserted
+     */
+    @Override
+    public void insertGroups(int from, int to) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.SCHEDULE, null, null);
+
+            insertGroups(connection, from, to);
+
+            return null;
+        });
+    }
+
+    /**
+     * Replaces all groups by the groups with the numbers between from and to (inclusive), deleting the old ones
+     * including their Reservations and Bookings and inserting the new ones in a batch within one transaction
+     *
+     * @param from the number of the first group
+     * @param to   the number of the last group
+     * @throws SQLException if an SQL error occurs, in which case nothing is deleted or inserted
+     */
+    @Override
+    public void replaceGroups(int from, int to) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.SCHEDULE, null, null);
+
+            deleteAllGroups(connection);
+            insertGroups(connection, from, to);
+
+            return null;
+        });
+    }
+
+    /**
+     * Inserts the groups with the numbers between from and to (inclusive) in a batch
+     *
+     * @param connection the pooled connection to execute the statement on
+     * @param from       the number of the first group
+     * @param to         the number of the last group
+     * @throws SQLException if an SQL error occurs
+     */
+    private void insertGroups(PooledConnection connection, int from, int to) throws SQLException {
+        final String query = "INSERT INTO Groups (GroupNumber) VALUES (?);";
+        PreparedStatement statement = connection.prepare(query);
+
+        for (int groupNumber = from; groupNumber <= to; groupNumber++) {
+            statement.setInt(1, groupNumber);
+            statement.addBatch();
+        }
+
+        statement.executeBatch();
     }
 
     /**
@@ -287,46 +910,353 @@ public class DBRepository {
      * @param group the group to be inserted
      * @throws SQLException if an SQL error occurs
      */
+    @Override
     public void insertGroup(Group group) throws SQLException {
         String query = "INSERT INTO Groups (GroupNumber) VALUES (?);";
-        PreparedStatement statement = connection.prepareStatement(query);
 
-        statement.setInt(1, group.getNumber());
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.GROUP, null, group.getNumber());
 
-        statement.execute();
+            PreparedStatement statement = connection.prepare(query);
+
+            statement.setInt(1, group.getNumber());
+
+            statement.execute();
+
+            return null;
+        });
     }
 
     /**
-     * Updates an Appointment, and, if applicable, its Reservation and Booking
-     * by deleting the old data and inserting the new data
+     * Updates the changed fields of an Appointment, its Reservation and its Booking within one transaction
+     *
+     * Only the columns and tables affected by the changes of the Appointment and its Booking are written.
+     * The versions of the rows are checked and incremented, and set on the Appointment and its Booking after the commit.
      *
      * @param appointment The Appointment to be updated
-     * @throws SQLException if an SQL error occurs
+     * @throws ConcurrentUpdateException if the Appointment or its Booking was changed since it was loaded,
+     *                                   in which case nothing is written
+     * @throws SQLException              if an SQL error occurs
      */
+    @Override
     public void updateAppointment(Appointment appointment) throws SQLException {
-        deleteAppointment(appointment);
-        insertAppointment(appointment);
+        if (!appointment.hasChanges()) return;
+
+        boolean bookingUpdated = inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logChange(connection, ScheduleChange.Kind.APPOINTMENT, appointment.getDate(), null);
+
+            updateAppointmentRow(connection, appointment);
+
+            boolean bookingInserted = false;
+            if (appointment.getChangedFields().contains(Appointment.Field.STATE)) {
+                bookingInserted = updateReservationAndBooking(connection, appointment);
+            }
+
+            Booking booking = appointment.getBooking();
+            if (!bookingInserted && appointment.getState() == Appointment.State.BOOKED && booking.isChanged()) {
+                updateBookingRow(connection, booking);
+                return true;
+            }
+
+            return false;
+        });
+
+        appointment.setVersion(appointment.getVersion() + 1);
+        if (bookingUpdated) {
+            Booking booking = appointment.getBooking();
+            booking.setVersion(booking.getVersion() + 1);
+        }
     }
 
     /**
-     * Updates a Booking, by deleting the old data and inserting the new data
+     * Updates the changed columns of the Appointment table and increments the version of the row
      *
-     * @param booking The Booking to be updated
+     * The version is incremented even if no column changed, as the Reservation or Booking of the Appointment did.
+     *
+     * @param connection  the pooled connection to execute the statement on
+     * @param appointment the changed Appointment
+     * @throws ConcurrentUpdateException if the row does not have the version of the Appointment anymore
+     * @throws SQLException              if an SQL error occurs
+     */
+    private void updateAppointmentRow(PooledConnection connection, Appointment appointment) throws SQLException {
+        Set<Appointment.Field> changedFields = appointment.getChangedFields();
+
+        boolean timeWindowChanged = changedFields.contains(Appointment.Field.TIME_WINDOW);
+        boolean noteChanged = changedFields.contains(Appointment.Field.NOTE);
+        boolean activationChanged = changedFields.contains(Appointment.Field.STATE) &&
+                (appointment.getPersistedState() == Appointment.State.DEACTIVATED) !=
+                        (appointment.getState() == Appointment.State.DEACTIVATED);
+
+        StringJoiner columns = new StringJoiner(", ", "UPDATE Appointment SET ", " WHERE Date = ? AND Version = ?;");
+        columns.add("Version = Version + 1");
+        if (timeWindowChanged) columns.add("StartTime = ?").add("EndTime = ?");
+        if (noteChanged) columns.add("Note = ?");
+        if (activationChanged) columns.add("Activated = ?");
+
+        PreparedStatement statement = connection.prepare(columns.toString());
+        int parameter = 1;
+
+        if (timeWindowChanged) {
+            statement.setTime(parameter++, Time.valueOf(appointment.getTimeWindow().getStart()));
+            statement.setTime(parameter++, Time.valueOf(appointment.getTimeWindow().getEnd()));
+        }
+        if (noteChanged) statement.setString(parameter++, appointment.getNote());
+        if (activationChanged) statement.setBoolean(parameter++, appointment.getState() != Appointment.State.DEACTIVATED);
+
+        statement.setDate(parameter++, Date.valueOf(appointment.getDate()));
+        statement.setInt(parameter, appointment.getVersion());
+
+        if (statement.executeUpdate() == 0) {
+            throw new ConcurrentUpdateException("Appointment " + appointment.getDate() + " was changed since version " +
+                    appointment.getVersion());
+        }
+    }
+
+    /**
+     * Brings the Reservation and Booking of an Appointment in line with its new state,
+     * deleting and inserting only the rows that differ from the persisted state
+     *
+     * @param connection  the pooled connection to execute the statements on
+     * @param appointment the Appointment with a changed state
+     * @return true if a new Booking row was inserted, false otherwise
      * @throws SQLException if an SQL error occurs
      */
+    private boolean updateReservationAndBooking(PooledConnection connection, Appointment appointment) throws SQLException {
+        Group persistedGroup = appointment.getPersistedGroup();
+        Group group = appointment.getGroup();
+        boolean wasBooked = appointment.getPersistedState() == Appointment.State.BOOKED;
+        boolean isBooked = appointment.getState() == Appointment.State.BOOKED;
+        boolean groupChanged = persistedGroup != null && !persistedGroup.equals(group);
+
+        if (wasBooked && (groupChanged || !isBooked)) {
+            PreparedStatement statement = connection.prepare("DELETE FROM Booking WHERE Reservation = ?;");
+            statement.setInt(1, persistedGroup.getNumber());
+            statement.execute();
+            wasBooked = false;
+        }
+
+        if (groupChanged) {
+            PreparedStatement statement = connection.prepare("DELETE FROM Reservation WHERE Groups = ? AND Appointment = ?;");
+            statement.setInt(1, persistedGroup.getNumber());
+            statement.setDate(2, Date.valueOf(appointment.getDate()));
+            statement.execute();
+        }
+
+        if (group != null && !group.equals(persistedGroup)) {
+            insertReservation(connection, new Reservation(group), appointment.getDate());
+        }
+
+        if (isBooked && !wasBooked) {
+            insertBookingRow(connection, appointment.getBooking());
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Books an Appointment for a group, checking and writing everything within one transaction
+     *
+     * The booking is only written if the Appointment is activated, the start time is within its time window,
+     * it is neither booked nor reserved by another group and the group has not booked any Appointment yet.
+     * A reservation of the group on another date is cancelled. Changing transactions are serialized by the
+     * schedule version lock taken first, and the unique indexes on Reservation (Appointment) and Booking (Reservation)
+     * prevent two groups from holding the same Appointment even for writers bypassing it.
+     *
+     * @param date         the date of the Appointment
+     * @param group        the booking group
+     * @param bookingStart the start time of the booking
+     * @return the booked Appointment
+     * @throws OperationNotAllowedException     if the booking is not allowed, with the reason of the rejection,
+     *                                          in which case nothing is written
+     * @throws SQLException                     if an SQL error occurs
+     * @throws InvalidAppointmentStateException if the data from the database is invalid
+     * @throws InvalidTimeWindowException       if the Appointment's time window is invalid
+     */
+    @Override
+    public Appointment book(LocalDate date, Group group, LocalTime bookingStart) throws OperationNotAllowedException,
+            SQLException, InvalidAppointmentStateException, InvalidTimeWindowException {
+        final String checkQuery = "SELECT A.Activated, A.StartTime, A.EndTime, A.Note, A.Version, R.Groups,\n" +
+                "(SELECT COUNT(*) FROM Booking WHERE Reservation = ?) AS GroupBookings\n" +
+                "FROM Appointment A\n" +
+                "LEFT JOIN Reservation R on A.Date = R.Appointment\n" +
+                "WHERE A.Date = ?;";
+
+        BookedAppointment booked = inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+
+            PreparedStatement checkStatement = connection.prepare(checkQuery);
+            checkStatement.setInt(1, group.getNumber());
+            checkStatement.setDate(2, Date.valueOf(date));
+
+            BookedAppointment result = new BookedAppointment();
+            boolean reservedByGroup;
+
+            try (ResultSet results = checkStatement.executeQuery()) {
+                if (!results.next()) {
+                    return reject(connection, result, OperationNotAllowedException.Reason.NOT_ACTIVATED);
+                }
+
+                boolean active = results.getBoolean("Activated");
+                result.startTime = results.getTime("StartTime").toLocalTime();
+                result.endTime = results.getTime("EndTime").toLocalTime();
+                result.note = results.getString("Note");
+                result.version = results.getInt("Version") + 1;
+                int reservingGroup = results.getInt("Groups");
+                boolean reserved = !results.wasNull();
+                reservedByGroup = reserved && reservingGroup == group.getNumber();
+                int groupBookings = results.getInt("GroupBookings");
+
+                if (!active) {
+                    return reject(connection, result, OperationNotAllowedException.Reason.NOT_ACTIVATED);
+                }
+                if (reserved && !reservedByGroup) {
+                    return reject(connection, result, OperationNotAllowedException.Reason.TAKEN);
+                }
+                if (groupBookings > 0) {
+                    return reject(connection, result, OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT);
+                }
+                if (!bookingStart.isAfter(result.startTime) || !bookingStart.isBefore(result.endTime)) {
+                    return reject(connection, result, OperationNotAllowedException.Reason.OUTSIDE_TIME_WINDOW);
+                }
+            }
+
+            logReservedAppointmentChanges(connection, group.getNumber());
+            if (!reservedByGroup) logChange(connection, ScheduleChange.Kind.APPOINTMENT, date, null);
+            incrementReservedAppointmentVersions(connection, group.getNumber());
+            if (!reservedByGroup) incrementAppointmentVersion(connection, date);
+
+            PreparedStatement cancelStatement = connection.prepare("DELETE FROM Reservation WHERE Groups = ? AND Appointment <> ?;");
+            cancelStatement.setInt(1, group.getNumber());
+            cancelStatement.setDate(2, Date.valueOf(date));
+            cancelStatement.execute();
+
+            if (!reservedByGroup) {
+                insertReservation(connection, new Reservation(group), date);
+            }
+
+            result.booking = new Booking(group, TimeWindow.of(bookingStart), null);
+            insertBookingRow(connection, result.booking);
+
+            return result;
+        });
+
+        if (booked.rejection != null) throw new OperationNotAllowedException(booked.rejection);
+
+        Appointment appointment = new Appointment(date, TimeWindow.of(booked.startTime, booked.endTime), booked.note,
+                Appointment.State.BOOKED, booked.booking);
+        appointment.setVersion(booked.version);
+
+        return appointment;
+    }
+
+    /**
+     * The data of an Appointment read and written while booking it
+     */
+    private static class BookedAppointment {
+        private LocalTime startTime;
+        private LocalTime endTime;
+        private String note;
+        private int version;
+        private Booking booking;
+        private OperationNotAllowedException.Reason rejection;
+    }
+
+    /**
+     * Rolls back a booking transaction which rejected the booking
+     *
+     * @param connection the pooled connection of the transaction
+     * @param result     the data of the booked Appointment
+     * @param reason     the reason of the rejection
+     * @return the data of the booked Appointment, carrying the rejection
+     * @throws SQLException if the rollback fails
+     */
+    private static BookedAppointment reject(PooledConnection connection, BookedAppointment result,
+                                            OperationNotAllowedException.Reason reason) throws SQLException {
+        connection.getConnection().rollback();
+        result.rejection = reason;
+        return result;
+    }
+
+    /**
+     * Increments the version of an Appointment row
+     *
+     * @param connection the pooled connection of the transaction
+     * @param date       the date of the Appointment
+     * @throws SQLException if an SQL error occurs
+     */
+    private void incrementAppointmentVersion(PooledConnection connection, LocalDate date) throws SQLException {
+        PreparedStatement statement = connection.prepare("UPDATE Appointment SET Version = Version + 1 WHERE Date = ?;");
+        statement.setDate(1, Date.valueOf(date));
+        statement.execute();
+    }
+
+    /**
+     * Increments the versions of the Appointments reserved or booked by a group, before the Reservation is removed
+     *
+     * @param connection  the pooled connection of the transaction
+     * @param groupNumber the number of the group
+     * @throws SQLException if an SQL error occurs
+     */
+    private void incrementReservedAppointmentVersions(PooledConnection connection, int groupNumber) throws SQLException {
+        final String query = "UPDATE Appointment SET Version = Version + 1\n" +
+                "WHERE Date IN (SELECT Appointment FROM Reservation WHERE Groups = ?);";
+
+        PreparedStatement statement = connection.prepare(query);
+        statement.setInt(1, groupNumber);
+        statement.execute();
+    }
+
+    /**
+     * Updates the time window and room of a Booking, and sets the incremented version on it after the commit
+     *
+     * @param booking The Booking to be updated
+     * @throws ConcurrentUpdateException if the Booking was changed or removed since it was loaded,
+     *                                   in which case nothing is written
+     * @throws SQLException              if an SQL error occurs
+     */
+    @Override
     public void updateBooking(Booking booking) throws SQLException {
+        inTransaction(connection -> {
+            incrementScheduleVersion(connection);
+            logReservedAppointmentChanges(connection, booking.getGroup().getNumber());
+
+            updateBookingRow(connection, booking);
+
+            return null;
+        });
+
+        booking.setVersion(booking.getVersion() + 1);
+    }
+
+    /**
+     * Updates the time window and room of a Booking and increments the version of the row
+     *
+     * @param connection the pooled connection to execute the statement on
+     * @param booking    The Booking to be updated
+     * @throws ConcurrentUpdateException if the row does not have the version of the Booking anymore
+     * @throws SQLException              if an SQL error occurs
+     */
+    private void updateBookingRow(PooledConnection connection, Booking booking) throws SQLException {
         TimeWindow timeWindow = booking.getTimeWindow();
         Time startTime = Time.valueOf(timeWindow.getStart());
         Time endTime = timeWindow.getEnd() == null ? null : Time.valueOf(timeWindow.getEnd());
 
-        String query = "UPDATE Booking SET StartTime = ?, EndTime = ?, Room = ? WHERE Reservation = ?";
-        PreparedStatement statement = connection.prepareStatement(query);
+        String query = "UPDATE Booking SET StartTime = ?, EndTime = ?, Room = ?, Version = Version + 1\n" +
+                "WHERE Reservation = ? AND Version = ?;";
+        PreparedStatement statement = connection.prepare(query);
 
         statement.setTime(1, startTime);
         statement.setTime(2, endTime);
         statement.setString(3, booking.getRoom());
         statement.setInt(4, booking.getGroup().getNumber());
+        statement.setInt(5, booking.getVersion());
 
-        statement.execute();
+        if (statement.executeUpdate() == 0) {
+            throw new ConcurrentUpdateException("Booking of group " + booking.getGroup().getNumber() +
+                    " was changed since version " + booking.getVersion());
+        }
     }
 }
@@ -0,0 +1,731 @@
+package repository;
+
+import models.*;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * A Repository holding the schedule in memory, e.g. for small exam sessions without a database or for tests
+ *
+ * The Appointments are kept in a map sorted by date, so ranges are read without scanning the schedule, and the
+ * Reservations and Bookings in maps keyed by group number, mirroring the tables of the DBRepository.
+ * Writes change several maps one after another, so they hold the write lock, which serializes them like the
+ * schedule version serializes the changing transactions of the DBRepository. Reads combining an Appointment with
+ * its Reservation, Booking or group hold the read lock and never see a write half done, reads of a single map
+ * need no lock. Writes check everything before changing anything, so a failed write leaves the schedule unchanged.
+ */
+public class InMemoryRepository implements Repository {
+    private final ConcurrentSkipListMap<LocalDate, AppointmentRow> appointments = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Integer, Group> groups = new ConcurrentSkipListMap<>();
+    private final Map<Integer, NavigableSet<LocalDate>> reservations = new ConcurrentHashMap<>();
+    private final Map<Integer, BookingRow> bookings = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Long, ScheduleChange> changeLog = new ConcurrentSkipListMap<>();
+    private final Map<Integer, Group> groupIdentities = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong scheduleVersion = new AtomicLong();
+    private final AtomicLong changeSequence = new AtomicLong();
+
+    /**
+     * A row of the Appointment table together with the number of the group holding the Appointment
+     */
+    private static final class AppointmentRow {
+        private final boolean activated;
+        private final TimeWindow timeWindow;
+        private final String note;
+        private final int version;
+        private final Integer groupNumber;
+
+        private AppointmentRow(boolean activated, TimeWindow timeWindow, String note, int version,
+                               Integer groupNumber) {
+            this.activated = activated;
+            this.timeWindow = timeWindow;
+            this.note = note;
+            this.version = version;
+            this.groupNumber = groupNumber;
+        }
+
+        private AppointmentRow withGroup(Integer groupNumber) {
+            return new AppointmentRow(activated, timeWindow, note, version, groupNumber);
+        }
+
+        private AppointmentRow withNextVersion() {
+            return new AppointmentRow(activated, timeWindow, note, version + 1, groupNumber);
+        }
+    }
+
+    /**
+     * A row of the Booking table
+     */
+    private static final class BookingRow {
+        private final TimeWindow timeWindow;
+        private final String room;
+        private final int version;
+
+        private BookingRow(TimeWindow timeWindow, String room, int version) {
+            this.timeWindow = timeWindow;
+            this.room = room;
+            this.version = version;
+        }
+    }
+
+    @Override
+    public long getScheduleVersion() {
+        return scheduleVersion.get();
+    }
+
+    @Override
+    public long getLatestChangeSequence() {
+        Map.Entry<Long, ScheduleChange> latest = changeLog.lastEntry();
+        return latest == null ? 0 : latest.getKey();
+    }
+
+    @Override
+    public List<ScheduleChange> getChangesAfter(long sequence) {
+        return new ArrayList<>(changeLog.tailMap(sequence, false).values());
+    }
+
+    @Override
+    public List<Group> getGroups() {
+        return new ArrayList<>(groups.values());
+    }
+
+    @Override
+    public Map<Group, GroupStatus> getGroupStatuses() {
+        lock.readLock().lock();
+        try {
+            Map<Group, GroupStatus> statuses = new LinkedHashMap<>();
+
+            for (Group group : groups.values()) {
+                boolean hasReservation = !reservedDates(group.getNumber()).isEmpty();
+                boolean hasBooking = hasReservation && bookings.containsKey(group.getNumber());
+
+                statuses.put(group, hasBooking ? GroupStatus.BOOKED :
+                        hasReservation ? GroupStatus.RESERVED : GroupStatus.NONE);
+            }
+
+            return statuses;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Appointment> getAppointments(LocalDate from, LocalDate to) throws InvalidAppointmentStateException {
+        lock.readLock().lock();
+        try {
+            List<Appointment> result = new ArrayList<>();
+
+            for (Map.Entry<LocalDate, AppointmentRow> entry : appointments.subMap(from, true, to, true).entrySet()) {
+                result.add(toAppointment(entry.getKey(), entry.getValue()));
+            }
+
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Appointment> getStudentAppointments(LocalDate from, LocalDate to, int groupNumber)
+            throws InvalidAppointmentStateException {
+        lock.readLock().lock();
+        try {
+            List<Appointment> result = new ArrayList<>();
+
+            for (Map.Entry<LocalDate, AppointmentRow> entry : appointments.subMap(from, true, to, true).entrySet()) {
+                LocalDate date = entry.getKey();
+                AppointmentRow row = entry.getValue();
+
+                if (!row.activated) continue;
+
+                if (row.groupNumber == null || row.groupNumber == groupNumber) {
+                    result.add(toAppointment(date, row));
+                    continue;
+                }
+
+                Appointment.State state = bookings.containsKey(row.groupNumber) ? Appointment.State.BOOKED :
+                        Appointment.State.RESERVED;
+                Appointment appointment = Appointment.takenByOtherGroup(date, row.timeWindow, row.note, state);
+                appointment.setVersion(row.version);
+                result.add(appointment);
+            }
+
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<LocalDate> findScheduleDate(LocalDate date) {
+        LocalDate scheduleDate = appointments.ceilingKey(date);
+        if (scheduleDate != null) return Optional.of(scheduleDate);
+
+        Map.Entry<LocalDate, AppointmentRow> last = appointments.lastEntry();
+        return last == null ? Optional.empty() : Optional.of(last.getKey());
+    }
+
+    @Override
+    public Optional<Appointment> getAppointment(LocalDate date) throws InvalidAppointmentStateException {
+        lock.readLock().lock();
+        try {
+            AppointmentRow row = appointments.get(date);
+            return row == null ? Optional.empty() : Optional.of(toAppointment(date, row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Appointment> findAppointmentForGroup(int groupNumber) throws InvalidAppointmentStateException {
+        lock.readLock().lock();
+        try {
+            Appointment reservedAppointment = null;
+
+            for (LocalDate date : reservedDates(groupNumber)) {
+                AppointmentRow row = appointments.get(date);
+                if (row == null) continue;
+
+                Appointment appointment = toAppointment(date, row);
+
+                if (appointment.getState() == Appointment.State.BOOKED) return Optional.of(appointment);
+                if (appointment.getState() == Appointment.State.RESERVED) reservedAppointment = appointment;
+            }
+
+            return Optional.ofNullable(reservedAppointment);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteGroup(Group group) {
+        int groupNumber = group.getNumber();
+
+        lock.writeLock().lock();
+        try {
+            NavigableSet<LocalDate> reservedDates = reservedDates(groupNumber);
+
+            reservedDates.forEach(date -> logChange(ScheduleChange.Kind.APPOINTMENT, date, null));
+            logChange(ScheduleChange.Kind.GROUP, null, groupNumber);
+
+            for (LocalDate date : reservedDates) {
+                appointments.computeIfPresent(date, (key, row) -> row.withNextVersion().withGroup(null));
+            }
+
+            reservations.remove(groupNumber);
+            bookings.remove(groupNumber);
+            groups.remove(groupNumber);
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAppointments(LocalDate from, LocalDate to) {
+        lock.writeLock().lock();
+        try {
+            logChange(ScheduleChange.Kind.SCHEDULE, null, null);
+            removeAppointments(from, to);
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteAllGroups() {
+        lock.writeLock().lock();
+        try {
+            logChange(ScheduleChange.Kind.SCHEDULE, null, null);
+            removeAllGroups();
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void insertAppointment(Appointment appointment) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkInsertable(appointment, Collections.emptyNavigableSet(), Collections.emptySet(), Collections.emptySet());
+
+            logChange(ScheduleChange.Kind.APPOINTMENT, appointment.getDate(), null);
+            putAppointment(appointment);
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void insertAppointments(List<Appointment> appointments) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkInsertable(appointments, Collections.emptyNavigableSet());
+
+            logChange(ScheduleChange.Kind.SCHEDULE, null, null);
+            for (Appointment appointment : appointments) {
+                putAppointment(appointment);
+            }
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void replaceAppointments(LocalDate from, LocalDate to, List<Appointment> appointments) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkInsertable(appointments, this.appointments.subMap(from, true, to, true).navigableKeySet());
+
+            logChange(ScheduleChange.Kind.SCHEDULE, null, null);
+            removeAppointments(from, to);
+            for (Appointment appointment : appointments) {
+                putAppointment(appointment);
+            }
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void insertGroups(int from, int to) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            for (int groupNumber = from; groupNumber <= to; groupNumber++) {
+                checkGroupMissing(groupNumber);
+            }
+
+            logChange(ScheduleChange.Kind.SCHEDULE, null, null);
+            for (int groupNumber = from; groupNumber <= to; groupNumber++) {
+                groups.put(groupNumber, toGroup(groupNumber));
+            }
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void replaceGroups(int from, int to) {
+        lock.writeLock().lock();
+        try {
+            logChange(ScheduleChange.Kind.SCHEDULE, null, null);
+            removeAllGroups();
+            for (int groupNumber = from; groupNumber <= to; groupNumber++) {
+                groups.put(groupNumber, toGroup(groupNumber));
+            }
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void insertGroup(Group group) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            checkGroupMissing(group.getNumber());
+
+            logChange(ScheduleChange.Kind.GROUP, null, group.getNumber());
+            groups.put(group.getNumber(), toGroup(group.getNumber()));
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Updates the changed fields of an Appointment, its Reservation and its Booking at once
+     *
+     * Reservations and Bookings are removed and added like by the DBRepository, only where they differ
+     * from the persisted state of the Appointment.
+     *
+     * @param appointment The Appointment to be updated
+     * @throws ConcurrentUpdateException if the Appointment or its Booking was changed since it was loaded,
+     *                                   in which case nothing is written
+     * @throws SQLException              if the new Reservation or Booking violates an invariant
+     */
+    @Override
+    public void updateAppointment(Appointment appointment) throws SQLException {
+        if (!appointment.hasChanges()) return;
+
+        LocalDate date = appointment.getDate();
+        Set<Appointment.Field> changedFields = appointment.getChangedFields();
+        boolean stateChanged = changedFields.contains(Appointment.Field.STATE);
+
+        Group persistedGroup = appointment.getPersistedGroup();
+        Group group = appointment.getGroup();
+        boolean wasBooked = appointment.getPersistedState() == Appointment.State.BOOKED;
+        boolean isBooked = appointment.getState() == Appointment.State.BOOKED;
+        boolean groupChanged = persistedGroup != null && !persistedGroup.equals(group);
+
+        boolean bookingRemoved = stateChanged && wasBooked && (groupChanged || !isBooked);
+        boolean reservationInserted = stateChanged && group != null && !group.equals(persistedGroup);
+        boolean bookingInserted = stateChanged && isBooked && (!wasBooked || bookingRemoved);
+        boolean bookingUpdated = !bookingInserted && isBooked && appointment.getBooking().isChanged();
+
+        lock.writeLock().lock();
+        try {
+            AppointmentRow row = appointments.get(date);
+
+            if (row == null || row.version != appointment.getVersion()) {
+                throw new ConcurrentUpdateException("Appointment " + date + " was changed since version " +
+                        appointment.getVersion());
+            }
+
+            Integer groupNumber = row.groupNumber;
+            if (stateChanged && groupChanged && Objects.equals(groupNumber, persistedGroup.getNumber())) {
+                groupNumber = null;
+            }
+
+            if (reservationInserted) {
+                if (!groups.containsKey(group.getNumber())) {
+                    throw new SQLIntegrityConstraintViolationException("Group " + group.getNumber() + " does not exist");
+                }
+                if (groupNumber != null) {
+                    throw new SQLIntegrityConstraintViolationException("Appointment " + date + " is held by group " +
+                            groupNumber);
+                }
+            }
+
+            if (bookingInserted && bookings.containsKey(group.getNumber())) {
+                throw new SQLIntegrityConstraintViolationException("Group " + group.getNumber() + " has a booking already");
+            }
+
+            Booking booking = appointment.getBooking();
+            BookingRow bookingRow = bookingUpdated ? bookings.get(booking.getGroup().getNumber()) : null;
+
+            if (bookingUpdated && (bookingRow == null || bookingRow.version != booking.getVersion())) {
+                throw new ConcurrentUpdateException("Booking of group " + booking.getGroup().getNumber() +
+                        " was changed since version " + booking.getVersion());
+            }
+
+            logChange(ScheduleChange.Kind.APPOINTMENT, date, null);
+
+            if (bookingRemoved) bookings.remove(persistedGroup.getNumber());
+            if (stateChanged && groupChanged) removeReservation(persistedGroup.getNumber(), date);
+
+            if (reservationInserted) {
+                addReservation(group.getNumber(), date);
+                groupNumber = group.getNumber();
+            }
+
+            if (bookingInserted) bookings.put(group.getNumber(), toBookingRow(booking, 0));
+            if (bookingUpdated) bookings.put(booking.getGroup().getNumber(), toBookingRow(booking, bookingRow.version + 1));
+
+            boolean activationChanged = stateChanged &&
+                    (appointment.getPersistedState() == Appointment.State.DEACTIVATED) !=
+                            (appointment.getState() == Appointment.State.DEACTIVATED);
+
+            appointments.put(date, new AppointmentRow(
+                    activationChanged ? appointment.getState() != Appointment.State.DEACTIVATED : row.activated,
+                    changedFields.contains(Appointment.Field.TIME_WINDOW) ? appointment.getTimeWindow() : row.timeWindow,
+                    changedFields.contains(Appointment.Field.NOTE) ? appointment.getNote() : row.note,
+                    row.version + 1, groupNumber));
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        appointment.setVersion(appointment.getVersion() + 1);
+        if (bookingUpdated) {
+            Booking booking = appointment.getBooking();
+            booking.setVersion(booking.getVersion() + 1);
+        }
+    }
+
+    @Override
+    public Appointment book(LocalDate date, Group group, LocalTime bookingStart) throws OperationNotAllowedException,
+            SQLException, InvalidAppointmentStateException {
+        int groupNumber = group.getNumber();
+        AppointmentRow booked;
+
+        lock.writeLock().lock();
+        try {
+            AppointmentRow row = appointments.get(date);
+            if (row == null || !row.activated) {
+                throw new OperationNotAllowedException(OperationNotAllowedException.Reason.NOT_ACTIVATED);
+            }
+
+            boolean reserved = row.groupNumber != null;
+            boolean reservedByGroup = reserved && row.groupNumber == groupNumber;
+
+            if (reserved && !reservedByGroup) {
+                throw new OperationNotAllowedException(OperationNotAllowedException.Reason.TAKEN);
+            }
+            if (bookings.containsKey(groupNumber)) {
+                throw new OperationNotAllowedException(OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT);
+            }
+            if (!bookingStart.isAfter(row.timeWindow.getStart()) || !bookingStart.isBefore(row.timeWindow.getEnd())) {
+                throw new OperationNotAllowedException(OperationNotAllowedException.Reason.OUTSIDE_TIME_WINDOW);
+            }
+
+            if (!groups.containsKey(groupNumber)) {
+                throw new SQLIntegrityConstraintViolationException("Group " + groupNumber + " does not exist");
+            }
+
+            NavigableSet<LocalDate> reservedDates = reservedDates(groupNumber);
+
+            reservedDates.forEach(reservedDate -> logChange(ScheduleChange.Kind.APPOINTMENT, reservedDate, null));
+            if (!reservedByGroup) logChange(ScheduleChange.Kind.APPOINTMENT, date, null);
+
+            for (LocalDate reservedDate : reservedDates) {
+                if (reservedDate.equals(date)) continue;
+
+                appointments.computeIfPresent(reservedDate, (key, reservedRow) ->
+                        reservedRow.withNextVersion().withGroup(null));
+                removeReservation(groupNumber, reservedDate);
+            }
+
+            booked = row.withNextVersion().withGroup(groupNumber);
+            appointments.put(date, booked);
+            if (!reservedByGroup) addReservation(groupNumber, date);
+            bookings.put(groupNumber, new BookingRow(TimeWindow.of(bookingStart), null, 0));
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Appointment appointment = new Appointment(date, booked.timeWindow, booked.note, Appointment.State.BOOKED,
+                new Booking(group, TimeWindow.of(bookingStart), null));
+        appointment.setVersion(booked.version);
+
+        return appointment;
+    }
+
+    @Override
+    public void updateBooking(Booking booking) throws SQLException {
+        int groupNumber = booking.getGroup().getNumber();
+
+        lock.writeLock().lock();
+        try {
+            BookingRow row = bookings.get(groupNumber);
+
+            if (row == null || row.version != booking.getVersion()) {
+                throw new ConcurrentUpdateException("Booking of group " + groupNumber + " was changed since version " +
+                        booking.getVersion());
+            }
+
+            reservedDates(groupNumber).forEach(date -> logChange(ScheduleChange.Kind.APPOINTMENT, date, null));
+            bookings.put(groupNumber, toBookingRow(booking, row.version + 1));
+
+            scheduleVersion.incrementAndGet();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        booking.setVersion(booking.getVersion() + 1);
+    }
+
+    /**
+     * Maps a row to an Appointment with its Reservation or Booking
+     */
+    private Appointment toAppointment(LocalDate date, AppointmentRow row) throws InvalidAppointmentStateException {
+        Appointment appointment;
+
+        if (!row.activated) {
+            appointment = new Appointment(date, row.timeWindow, row.note, Appointment.State.DEACTIVATED);
+        } else if (row.groupNumber == null) {
+            appointment = new Appointment(date, row.timeWindow, row.note, Appointment.State.FREE);
+        } else {
+            Group group = toGroup(row.groupNumber);
+            BookingRow bookingRow = bookings.get(row.groupNumber);
+
+            if (bookingRow == null) {
+                appointment = new Appointment(date, row.timeWindow, row.note, Appointment.State.RESERVED,
+                        new Reservation(group));
+            } else {
+                Booking booking = new Booking(group, bookingRow.timeWindow, bookingRow.room);
+                booking.setVersion(bookingRow.version);
+                appointment = new Appointment(date, row.timeWindow, row.note, Appointment.State.BOOKED, booking);
+            }
+        }
+
+        appointment.setVersion(row.version);
+
+        return appointment;
+    }
+
+    private static BookingRow toBookingRow(Booking booking, int version) {
+        return new BookingRow(booking.getTimeWindow(), booking.getRoom(), version);
+    }
+
+    /**
+     * Checks a list of Appointments to be inserted at once, after the Appointments on the replaced dates are deleted
+     */
+    private void checkInsertable(List<Appointment> appointments, NavigableSet<LocalDate> replacedDates)
+            throws SQLIntegrityConstraintViolationException {
+        Set<LocalDate> dates = new HashSet<>();
+        Set<Integer> bookingGroups = new HashSet<>();
+
+        for (Appointment appointment : appointments) {
+            checkInsertable(appointment, replacedDates, dates, bookingGroups);
+
+            dates.add(appointment.getDate());
+            if (appointment.getState() == Appointment.State.BOOKED) {
+                bookingGroups.add(appointment.getBooking().getGroup().getNumber());
+            }
+        }
+    }
+
+    /**
+     * Checks that an Appointment can be inserted, like the keys of the Appointment, Reservation and Booking tables
+     *
+     * @param appointment   the Appointment to insert
+     * @param replacedDates the dates of the Appointments deleted before the insert
+     * @param pendingDates  the dates of the Appointments inserted along with it
+     * @param pendingGroups the groups of the Bookings inserted along with it
+     * @throws SQLIntegrityConstraintViolationException if the Appointment can't be inserted
+     */
+    private void checkInsertable(Appointment appointment, NavigableSet<LocalDate> replacedDates,
+                                 Set<LocalDate> pendingDates, Set<Integer> pendingGroups)
+            throws SQLIntegrityConstraintViolationException {
+        LocalDate date = appointment.getDate();
+
+        if ((appointments.containsKey(date) && !replacedDates.contains(date)) || pendingDates.contains(date)) {
+            throw new SQLIntegrityConstraintViolationException("Appointment " + date + " exists already");
+        }
+
+        Group group = holdingGroup(appointment);
+        if (group == null) return;
+
+        if (!groups.containsKey(group.getNumber())) {
+            throw new SQLIntegrityConstraintViolationException("Group " + group.getNumber() + " does not exist");
+        }
+
+        if (appointment.getState() == Appointment.State.BOOKED &&
+                ((bookings.containsKey(group.getNumber()) && !replacedDates.containsAll(reservedDates(group.getNumber())))
+                        || pendingGroups.contains(group.getNumber()))) {
+            throw new SQLIntegrityConstraintViolationException("Group " + group.getNumber() + " has a booking already");
+        }
+    }
+
+    private void checkGroupMissing(int groupNumber) throws SQLIntegrityConstraintViolationException {
+        if (groups.containsKey(groupNumber)) {
+            throw new SQLIntegrityConstraintViolationException("Group " + groupNumber + " exists already");
+        }
+    }
+
+    /**
+     * Removes the Appointments within a range of dates together with their Reservations and Bookings
+     */
+    private void removeAppointments(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, AppointmentRow> range = appointments.subMap(from, true, to, true);
+
+        for (Map.Entry<LocalDate, AppointmentRow> entry : range.entrySet()) {
+            if (entry.getValue().groupNumber != null) {
+                removeReservation(entry.getValue().groupNumber, entry.getKey());
+            }
+        }
+        range.clear();
+    }
+
+    /**
+     * Removes all groups together with their Reservations and Bookings
+     */
+    private void removeAllGroups() {
+        for (NavigableSet<LocalDate> reservedDates : reservations.values()) {
+            for (LocalDate date : reservedDates) {
+                appointments.computeIfPresent(date, (key, row) -> row.withGroup(null));
+            }
+        }
+
+        reservations.clear();
+        bookings.clear();
+        groups.clear();
+    }
+
+    /**
+     * Stores a checked Appointment with its Reservation and Booking, with version 0 like newly inserted rows
+     */
+    private void putAppointment(Appointment appointment) {
+        Group group = holdingGroup(appointment);
+
+        appointments.put(appointment.getDate(), new AppointmentRow(
+                appointment.getState() != Appointment.State.DEACTIVATED, appointment.getTimeWindow(),
+                appointment.getNote(), 0, group == null ? null : group.getNumber()));
+
+        if (group != null) addReservation(group.getNumber(), appointment.getDate());
+
+        if (appointment.getState() == Appointment.State.BOOKED) {
+            bookings.put(group.getNumber(), toBookingRow(appointment.getBooking(), 0));
+        }
+    }
+
+    private static Group holdingGroup(Appointment appointment) {
+        if (appointment.getState() == Appointment.State.RESERVED) return appointment.getReservation().getGroup();
+        if (appointment.getState() == Appointment.State.BOOKED) return appointment.getBooking().getGroup();
+        return null;
+    }
+
+    private NavigableSet<LocalDate> reservedDates(int groupNumber) {
+        return reservations.getOrDefault(groupNumber, Collections.emptyNavigableSet());
+    }
+
+    /**
+     * Adds a date to the reservations of a group, replacing the set so readers never see it change
+     */
+    private void addReservation(int groupNumber, LocalDate date) {
+        NavigableSet<LocalDate> dates = new TreeSet<>(reservedDates(groupNumber));
+        dates.add(date);
+        reservations.put(groupNumber, Collections.unmodifiableNavigableSet(dates));
+    }
+
+    /**
+     * Removes a date from the reservations of a group, and the group's Booking with its last Reservation
+     */
+    private void removeReservation(int groupNumber, LocalDate date) {
+        NavigableSet<LocalDate> dates = new TreeSet<>(reservedDates(groupNumber));
+        dates.remove(date);
+
+        if (dates.isEmpty()) {
+            reservations.remove(groupNumber);
+            bookings.remove(groupNumber);
+        } else {
+            reservations.put(groupNumber, Collections.unmodifiableNavigableSet(dates));
+        }
+    }
+
+    private void logChange(ScheduleChange.Kind kind, LocalDate appointmentDate, Integer groupNumber) {
+        long sequence = changeSequence.incrementAndGet();
+        changeLog.put(sequence, new ScheduleChange(sequence, kind, appointmentDate, groupNumber));
+    }
+
+    /**
+     * Gets the Group with a number from the identity map of the repository, so all Appointments of a group share
+     * one instance
+     *
+     * @param groupNumber the number of the group
+     * @return the Group
+     */
+    private Group toGroup(int groupNumber) {
+        return groupIdentities.computeIfAbsent(groupNumber, Group::new);
+    }
+}
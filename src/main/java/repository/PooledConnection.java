@@ -0,0 +1,135 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A connection checked out from the ConnectionPool, which is returned to the pool when closed
+ *
+ * A checkout is the scope of the JDBC resources used by a repository operation: when the connection is returned,
+ * ResultSets left open on the statements prepared during the checkout are closed and the parameters and batches
+ * of the statements are cleared, so the cached statements don't hold server cursors or client-side buffers.
+ * In debug mode a ResultSet left open makes closing the connection fail with a ResourceLeakException.
+ */
+class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private final List<PreparedStatement> usedStatements = new ArrayList<>();
+    private final AtomicBoolean checkedOut = new AtomicBoolean();
+    private long lastReleased;
+
+    /**
+     * Wraps a newly opened connection
+     *
+     * @param pool           the pool the connection belongs to
+     * @param connection     the JDBC connection
+     * @param statementCache the cache for statements prepared on the connection
+     */
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+        this.lastReleased = System.currentTimeMillis();
+    }
+
+    /**
+     * Gets a prepared statement for the SQL text from the connection's statement cache
+     *
+     * The statement must not be closed by the caller, but its ResultSets must be.
+     *
+     * @param sql the SQL text of the statement
+     * @return the prepared statement
+     * @throws SQLException if the statement can't be prepared
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statementCache.prepare(sql);
+        if (!usedStatements.contains(statement)) usedStatements.add(statement);
+        pool.getLeakDetector().recordStatementUse(statement);
+        return statement;
+    }
+
+    /**
+     * Releases the resources of the statements prepared during the checkout
+     *
+     * @param leakDetector the detector to record ResultSets left open in
+     * @return in debug mode the exception reporting the ResultSets left open, null if there were none
+     */
+    ResourceLeakException releaseResources(ResourceLeakDetector leakDetector) {
+        ResourceLeakException leak = null;
+
+        for (PreparedStatement statement : usedStatements) {
+            try {
+                ResultSet results = statement.getResultSet();
+                if (results != null && !results.isClosed()) {
+                    ResourceLeakException resultSetLeak = leakDetector.recordLeakedResultSet(statement);
+                    if (leak == null) leak = resultSetLeak;
+                    else if (resultSetLeak != null) leak.addSuppressed(resultSetLeak);
+                    results.close();
+                }
+
+                statement.clearBatch();
+                statement.clearParameters();
+            } catch (SQLException e) {
+                // The statement was evicted and closed in the meantime
+            }
+
+            leakDetector.recordStatementReleased(statement);
+        }
+
+        usedStatements.clear();
+
+        return leak;
+    }
+
+    /**
+     * Closes the cached statements and the underlying JDBC connection
+     *
+     * @throws SQLException if the connection can't be closed
+     */
+    void closeConnection() throws SQLException {
+        statementCache.close();
+        connection.close();
+    }
+
+    /**
+     * Gets the underlying JDBC connection
+     *
+     * @return the JDBC connection
+     */
+    Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * Gets the time the connection was last returned to the pool
+     *
+     * @return the time in milliseconds since the epoch
+     */
+    long getLastReleased() {
+        return lastReleased;
+    }
+
+    void markReleased() {
+        lastReleased = System.currentTimeMillis();
+    }
+
+    void markCheckedOut() {
+        checkedOut.set(true);
+    }
+
+    /**
+     * Returns the connection to the pool, does nothing if it was returned already since it was checked out
+     *
+     * @throws ResourceLeakException in debug mode, if a ResultSet was left open, after the connection was returned
+     */
+    @Override
+    public void close() throws ResourceLeakException {
+        if (checkedOut.compareAndSet(true, false)) pool.release(this);
+    }
+}
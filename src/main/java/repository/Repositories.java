@@ -0,0 +1,54 @@
+package repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Holds the Repository used by the application, selected by the REPOSITORY key of the db.properties
+ *
+ * "database" or a missing key selects the DBRepository, "memory" an InMemoryRepository, which holds the schedule
+ * only as long as the application runs.
+ */
+public class Repositories {
+    private static Repository instance = null;
+
+    private Repositories() {
+    }
+
+    /**
+     * Gets the configured Repository, creating it on the first call
+     *
+     * @return the Repository
+     * @throws RepositoryConnectionException if the configuration can't be read or the connection to the database fails
+     */
+    public static synchronized Repository get() throws RepositoryConnectionException {
+        if (instance == null) {
+            instance = create(loadProperties().getProperty("REPOSITORY", "database").trim());
+        }
+        return instance;
+    }
+
+    private static Repository create(String kind) throws RepositoryConnectionException {
+        switch (kind) {
+            case "database":
+                return DBRepository.getInstance();
+            case "memory":
+                return new InMemoryRepository();
+            default:
+                throw new RepositoryConnectionException();
+        }
+    }
+
+    private static Properties loadProperties() throws RepositoryConnectionException {
+        Properties properties = new Properties();
+
+        try (InputStream propertiesFile = Repositories.class.getResourceAsStream("/db.properties")) {
+            if (propertiesFile != null) properties.load(propertiesFile);
+        } catch (IOException e) {
+            throw new RepositoryConnectionException();
+        }
+
+        return properties;
+    }
+}
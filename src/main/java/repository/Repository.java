@@ -0,0 +1,244 @@
+package repository;
+
+import models.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The storage of the schedule: Appointments with their Reservations and Bookings, and the Groups
+ *
+ * Every change increments the schedule version and is appended to the change log. Implementations enforce the same
+ * invariants: an Appointment is held by at most one group, a group holds at most one Booking, and the versions
+ * of Appointments and Bookings are checked on every update. The implementation is selected by Repositories.
+ */
+public interface Repository {
+    /**
+     * Gets the version of the schedule, which is incremented by every change to Appointments, Reservations,
+     * Bookings and Groups
+     *
+     * @return the current schedule version
+     * @throws SQLException if the version can't be read
+     */
+    long getScheduleVersion() throws SQLException;
+
+    /**
+     * Gets the sequence number of the latest change in the change log
+     *
+     * @return the latest sequence number, or 0 if the change log is empty
+     * @throws SQLException if the change log can't be read
+     */
+    long getLatestChangeSequence() throws SQLException;
+
+    /**
+     * Gets the changes logged after a sequence number
+     *
+     * @param sequence the sequence number of the last change already known
+     * @return the later changes in ascending order
+     * @throws SQLException if the change log can't be read
+     */
+    List<ScheduleChange> getChangesAfter(long sequence) throws SQLException;
+
+    /**
+     * Gets all groups
+     *
+     * @return A list of all groups
+     * @throws SQLException if the groups can't be read
+     */
+    List<Group> getGroups() throws SQLException;
+
+    /**
+     * Gets all groups together with their reservation and booking status
+     *
+     * @return the status of every group, ordered by group number
+     * @throws SQLException if the groups can't be read
+     */
+    Map<Group, GroupStatus> getGroupStatuses() throws SQLException;
+
+    /**
+     * Gets the Appointments within a range of dates, ordered by date
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @return the Appointments from from to to, both inclusive
+     * @throws SQLException                     if the Appointments can't be read
+     * @throws InvalidAppointmentStateException if an appointment has an invalid state
+     * @throws InvalidTimeWindowException       if an appointment's or booking's time window is invalid
+     */
+    List<Appointment> getAppointments(LocalDate from, LocalDate to)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException;
+
+    /**
+     * Gets the activated Appointments within a range of dates as shown to a student, ordered by date
+     *
+     * Appointments reserved or booked by other groups only contain their state, see Appointment.takenByOtherGroup.
+     *
+     * @param from        the first date of the range
+     * @param to          the last date of the range
+     * @param groupNumber the number of the student's group
+     * @return the activated Appointments from from to to, both inclusive
+     * @throws SQLException                     if the Appointments can't be read
+     * @throws InvalidAppointmentStateException if an appointment has an invalid state
+     * @throws InvalidTimeWindowException       if an appointment's or booking's time window is invalid
+     */
+    List<Appointment> getStudentAppointments(LocalDate from, LocalDate to, int groupNumber)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException;
+
+    /**
+     * Finds the date the schedule should be shown from
+     *
+     * @param date the current date
+     * @return the date of the first Appointment on or after the date, the date of the last Appointment
+     * if all of them are earlier, or an empty Optional if there are no Appointments
+     * @throws SQLException if the Appointments can't be read
+     */
+    Optional<LocalDate> findScheduleDate(LocalDate date) throws SQLException;
+
+    /**
+     * Gets a single Appointment
+     *
+     * @param date the date of the Appointment
+     * @return the Appointment, or an empty Optional if there is no Appointment on the date
+     * @throws SQLException                     if the Appointment can't be read
+     * @throws InvalidAppointmentStateException if the appointment has an invalid state
+     * @throws InvalidTimeWindowException       if the appointment's or booking's time window is invalid
+     */
+    Optional<Appointment> getAppointment(LocalDate date)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException;
+
+    /**
+     * Gets the Appointment reserved or booked by a group
+     *
+     * @param groupNumber the number of the group
+     * @return the Appointment booked or reserved by the group, or an empty Optional if there is none
+     * @throws SQLException                     if the Appointment can't be read
+     * @throws InvalidAppointmentStateException if the appointment has an invalid state
+     * @throws InvalidTimeWindowException       if the appointment's or booking's time window is invalid
+     */
+    Optional<Appointment> findAppointmentForGroup(int groupNumber)
+            throws SQLException, InvalidAppointmentStateException, InvalidTimeWindowException;
+
+    /**
+     * Deletes a single Group, including its Reservations and Booking
+     *
+     * @param group the group to be deleted
+     * @throws SQLException if the group can't be deleted
+     */
+    void deleteGroup(Group group) throws SQLException;
+
+    /**
+     * Deletes the Appointments within a range of dates, including their Reservations and Bookings
+     *
+     * @param from the first date of the range
+     * @param to   the last date of the range
+     * @throws SQLException if the Appointments can't be deleted
+     */
+    void deleteAppointments(LocalDate from, LocalDate to) throws SQLException;
+
+    /**
+     * Deletes all Groups, including their Reservations and Bookings
+     *
+     * @throws SQLException if the groups can't be deleted
+     */
+    void deleteAllGroups() throws SQLException;
+
+    /**
+     * Inserts an Appointment including its Reservation or Booking
+     *
+     * @param appointment the Appointment to be inserted
+     * @throws SQLException if the Appointment can't be inserted, e.g. because there is one on the date already
+     */
+    void insertAppointment(Appointment appointment) throws SQLException;
+
+    /**
+     * Inserts a list of Appointments including their Reservations and Bookings, either all of them or none
+     *
+     * @param appointments the Appointments to be inserted
+     * @throws SQLException if an Appointment can't be inserted, in which case none of the Appointments are inserted
+     */
+    void insertAppointments(List<Appointment> appointments) throws SQLException;
+
+    /**
+     * Replaces the Appointments within a range of dates by a list of Appointments, deleting the old ones including
+     * their Reservations and Bookings, either all at once or nothing
+     *
+     * @param from         the first date of the range
+     * @param to           the last date of the range
+     * @param appointments the Appointments to be inserted
+     * @throws SQLException if an Appointment can't be inserted, in which case nothing is deleted or inserted
+     */
+    void replaceAppointments(LocalDate from, LocalDate to, List<Appointment> appointments) throws SQLException;
+
+    /**
+     * Inserts the groups with the numbers between from and to (inclusive), either all of them or none
+     *
+     * @param from the number of the first group
+     * @param to   the number of the last group
+     * @throws SQLException if a group can't be inserted, in which case none of the groups are inserted
+     */
+    void insertGroups(int from, int to) throws SQLException;
+
+    /**
+     * Replaces all groups by the groups with the numbers between from and to (inclusive), deleting the old ones
+     * including their Reservations and Bookings, either all at once or nothing
+     *
+     * @param from the number of the first group
+     * @param to   the number of the last group
+     * @throws SQLException if the groups can't be replaced, in which case nothing is deleted or inserted
+     */
+    void replaceGroups(int from, int to) throws SQLException;
+
+    /**
+     * Inserts a single group
+     *
+     * @param group the group to be inserted
+     * @throws SQLException if the group can't be inserted, e.g. because it exists already
+     */
+    void insertGroup(Group group) throws SQLException;
+
+    /**
+     * Writes the changed fields of an Appointment, its Reservation and its Booking at once
+     *
+     * The versions are checked and incremented, and set on the Appointment and its Booking afterwards.
+     *
+     * @param appointment The Appointment to be updated
+     * @throws ConcurrentUpdateException if the Appointment or its Booking was changed since it was loaded,
+     *                                   in which case nothing is written
+     * @throws SQLException              if the Appointment can't be written
+     */
+    void updateAppointment(Appointment appointment) throws SQLException;
+
+    /**
+     * Books an Appointment for a group, checking and writing everything at once
+     *
+     * The booking is only written if the Appointment is activated, the start time is within its time window,
+     * it is neither booked nor reserved by another group and the group has not booked any Appointment yet.
+     * A reservation of the group on another date is cancelled.
+     *
+     * @param date         the date of the Appointment
+     * @param group        the booking group
+     * @param bookingStart the start time of the booking
+     * @return the booked Appointment
+     * @throws OperationNotAllowedException     if the booking is not allowed, with the reason of the rejection,
+     *                                          in which case nothing is written
+     * @throws SQLException                     if the booking can't be written
+     * @throws InvalidAppointmentStateException if the stored data is invalid
+     * @throws InvalidTimeWindowException       if the Appointment's time window is invalid
+     */
+    Appointment book(LocalDate date, Group group, LocalTime bookingStart) throws OperationNotAllowedException,
+            SQLException, InvalidAppointmentStateException, InvalidTimeWindowException;
+
+    /**
+     * Updates the time window and room of a Booking, and sets the incremented version on it afterwards
+     *
+     * @param booking The Booking to be updated
+     * @throws ConcurrentUpdateException if the Booking was changed or removed since it was loaded,
+     *                                   in which case nothing is written
+     * @throws SQLException              if the Booking can't be written
+     */
+    void updateBooking(Booking booking) throws SQLException;
+}
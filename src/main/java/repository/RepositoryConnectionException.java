@@ -1,7 +1,7 @@
 package repository;
 
 /**
- * An Exception thrown by DBRepository if the connection to the database fails
+ * An Exception thrown if the connection to the repository fails
  */
 public class RepositoryConnectionException extends Exception {
 }
@@ -0,0 +1,142 @@
+package repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the JDBC resources held by the pooled connections and the ResultSets left open by callers
+ *
+ * The counters are always maintained. In debug mode, enabled with DB_LEAK_DETECTION=true, the stack traces of
+ * checkouts, of opened statements and of every use of a statement are recorded as well. Connections and statements
+ * which stay open can be traced to their creation site, and returning a connection with a ResultSet left open
+ * fails with a ResourceLeakException pointing to the call which prepared its statement.
+ */
+public class ResourceLeakDetector {
+    private final boolean enabled;
+
+    private final Map<PooledConnection, Throwable> checkoutTraces = new ConcurrentHashMap<>();
+    private final Map<PreparedStatement, Throwable> statementTraces = new ConcurrentHashMap<>();
+    private final Map<PreparedStatement, Throwable> statementUseTraces = new ConcurrentHashMap<>();
+    private final AtomicInteger openCheckouts = new AtomicInteger();
+    private final AtomicInteger openStatements = new AtomicInteger();
+    private final AtomicLong leakedResultSets = new AtomicLong();
+
+    /**
+     * Creates a detector
+     *
+     * @param enabled whether the stack traces of checkouts and statements are recorded
+     */
+    ResourceLeakDetector(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    void recordCheckout(PooledConnection pooledConnection) {
+        openCheckouts.incrementAndGet();
+        if (enabled) checkoutTraces.put(pooledConnection, new Throwable("Connection checked out here"));
+    }
+
+    void recordRelease(PooledConnection pooledConnection) {
+        openCheckouts.decrementAndGet();
+        if (enabled) checkoutTraces.remove(pooledConnection);
+    }
+
+    void recordStatementOpened(PreparedStatement statement) {
+        openStatements.incrementAndGet();
+        if (enabled) statementTraces.put(statement, new Throwable("Statement prepared here"));
+    }
+
+    void recordStatementClosed(PreparedStatement statement) {
+        openStatements.decrementAndGet();
+        if (enabled) statementTraces.remove(statement);
+    }
+
+    /**
+     * Records where a statement is used during a checkout, the site the ResultSets of the statement are opened at
+     *
+     * @param statement the statement handed out by PooledConnection.prepare
+     */
+    void recordStatementUse(PreparedStatement statement) {
+        if (enabled) statementUseTraces.put(statement, new Throwable("ResultSet opened here"));
+    }
+
+    /**
+     * Records that the resources of a statement were released at the end of a checkout
+     *
+     * @param statement the statement used during the checkout
+     */
+    void recordStatementReleased(PreparedStatement statement) {
+        if (enabled) statementUseTraces.remove(statement);
+    }
+
+    /**
+     * Records a ResultSet which was still open when its connection was returned to the pool
+     *
+     * @param statement the statement the ResultSet was opened on
+     * @return in debug mode the exception to report the leak with, null otherwise
+     */
+    ResourceLeakException recordLeakedResultSet(PreparedStatement statement) {
+        leakedResultSets.incrementAndGet();
+
+        Throwable trace = enabled ? statementUseTraces.get(statement) : null;
+        return trace == null ? null : new ResourceLeakException("ResultSet left open, closed on release of its connection", trace);
+    }
+
+    /**
+     * Whether the stack traces of checkouts and statements are recorded
+     *
+     * @return true in debug mode
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Gets the number of connections which are checked out and not yet returned
+     *
+     * @return the number of open checkouts
+     */
+    public int getOpenCheckouts() {
+        return openCheckouts.get();
+    }
+
+    /**
+     * Gets the number of prepared statements held open by the statement caches
+     *
+     * @return the number of open statements
+     */
+    public int getOpenStatements() {
+        return openStatements.get();
+    }
+
+    /**
+     * Gets the number of ResultSets which had to be closed when their connection was returned
+     *
+     * @return the number of leaked ResultSets
+     */
+    public long getLeakedResultSets() {
+        return leakedResultSets.get();
+    }
+
+    /**
+     * Gets the stack traces of the checkouts which were not returned yet
+     *
+     * @return the stack traces, empty if the detector is not enabled
+     */
+    public List<Throwable> getOpenCheckoutTraces() {
+        return new ArrayList<>(checkoutTraces.values());
+    }
+
+    /**
+     * Gets the stack traces of the statements which were prepared and not closed yet
+     *
+     * @return the stack traces, empty if the detector is not enabled
+     */
+    public List<Throwable> getOpenStatementTraces() {
+        return new ArrayList<>(statementTraces.values());
+    }
+}
@@ -0,0 +1,24 @@
+package repository;
+
+import java.sql.SQLException;
+
+/**
+ * An Exception thrown when a connection is returned to the pool with a ResultSet left open, in debug mode only
+ *
+ * The ResultSet is closed and the connection returned anyway. The stack trace is the one of the call which prepared
+ * the statement the ResultSet was opened on, so it points to the code that missed to close it.
+ */
+public class ResourceLeakException extends SQLException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a ResourceLeakException
+     *
+     * @param message      a description of the leaked resource
+     * @param creationSite the stack trace recorded where the resource was created
+     */
+    ResourceLeakException(String message, Throwable creationSite) {
+        super(message);
+        setStackTrace(creationSite.getStackTrace());
+    }
+}
@@ -0,0 +1,82 @@
+package repository;
+
+import java.time.LocalDate;
+
+/**
+ * An entry of the change log, written by every change to the schedule
+ */
+public class ScheduleChange {
+    /**
+     * What a change affected
+     */
+    public enum Kind {
+        /**
+         * A single Appointment, including its Reservation and Booking
+         */
+        APPOINTMENT,
+        /**
+         * A single Group
+         */
+        GROUP,
+        /**
+         * Any number of Appointments and Groups, e.g. when the schedule was generated
+         */
+        SCHEDULE
+    }
+
+    private final long sequence;
+    private final Kind kind;
+    private final LocalDate appointmentDate;
+    private final Integer groupNumber;
+
+    /**
+     * Constructs a ScheduleChange
+     *
+     * @param sequence        the sequence number of the change
+     * @param kind            what the change affected
+     * @param appointmentDate the date of the changed Appointment, or null
+     * @param groupNumber     the number of the changed Group, or null
+     */
+    public ScheduleChange(long sequence, Kind kind, LocalDate appointmentDate, Integer groupNumber) {
+        this.sequence = sequence;
+        this.kind = kind;
+        this.appointmentDate = appointmentDate;
+        this.groupNumber = groupNumber;
+    }
+
+    /**
+     * Gets the sequence number, which increases with every change
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Gets what the change affected
+     *
+     * @return the kind of the change
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets the date of the changed Appointment
+     *
+     * @return the date for APPOINTMENT changes, null otherwise
+     */
+    public LocalDate getAppointmentDate() {
+        return appointmentDate;
+    }
+
+    /**
+     * Gets the number of the changed Group
+     *
+     * @return the group number for GROUP changes, null otherwise
+     */
+    public Integer getGroupNumber() {
+        return groupNumber;
+    }
+}
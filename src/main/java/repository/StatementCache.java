@@ -0,0 +1,99 @@
+package repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A least recently used cache of PreparedStatements for a single connection, keyed by their SQL text
+ *
+ * Statements handed out by the cache stay owned by it: callers must close their ResultSets, but not the statements.
+ * Statements are closed when they are evicted or the cache is closed.
+ */
+class StatementCache {
+    private final Connection connection;
+    private final StatementCacheStatistics statistics;
+    private final ResourceLeakDetector leakDetector;
+    private final Map<String, PreparedStatement> statements;
+
+    /**
+     * Creates a statement cache for a connection
+     *
+     * @param connection the connection to prepare the statements on
+     * @param maxSize    the maximum number of cached statements, at least 1
+     * @param statistics   the statistics to record hits, misses and evictions in
+     * @param leakDetector the detector counting the open statements
+     */
+    StatementCache(Connection connection, int maxSize, StatementCacheStatistics statistics,
+                   ResourceLeakDetector leakDetector) {
+        this.connection = connection;
+        this.statistics = statistics;
+        this.leakDetector = leakDetector;
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= Math.max(1, maxSize)) return false;
+
+                closeQuietly(eldest.getValue());
+                leakDetector.recordStatementClosed(eldest.getValue());
+                statistics.recordEviction();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Gets the prepared statement for the SQL text, preparing it on the first use
+     *
+     * @param sql the SQL text of the statement
+     * @return the cached statement with its parameters cleared
+     * @throws SQLException if the statement can't be prepared
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+
+        if (statement != null && !statement.isClosed()) {
+            statistics.recordHit();
+            statement.clearParameters();
+            return statement;
+        }
+
+        if (statement != null) leakDetector.recordStatementClosed(statement);
+
+        statistics.recordMiss();
+        statement = connection.prepareStatement(sql);
+        leakDetector.recordStatementOpened(statement);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Gets the number of cached statements
+     *
+     * @return the number of cached statements
+     */
+    int size() {
+        return statements.size();
+    }
+
+    /**
+     * Closes all cached statements
+     */
+    void close() {
+        statements.values().forEach(statement -> {
+            closeQuietly(statement);
+            leakDetector.recordStatementClosed(statement);
+        });
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            // The statement is released either way
+        }
+    }
+}
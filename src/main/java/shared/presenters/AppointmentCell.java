@@ -0,0 +1,56 @@
+package shared.presenters;
+
+import javafx.scene.control.Label;
+import javafx.scene.control.ListCell;
+import models.Appointment;
+import models.GroupStatusIndex;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * A recycled cell of the virtualized appointment list
+ *
+ * The cell keeps one AppointmentEntry and one week label, and rebinds them to whichever row it currently displays.
+ */
+class AppointmentCell extends ListCell<AppointmentRow> {
+    private final BiFunction<Appointment, GroupStatusIndex, AppointmentEntry> entryFactory;
+    private final Supplier<GroupStatusIndex> groupStatuses;
+    private final Label weekLabel = new Label();
+    private AppointmentEntry entry;
+
+    /**
+     * Creates an empty cell
+     *
+     * @param entryFactory  creates the entry component on first use
+     * @param groupStatuses supplies the group statuses of the latest refresh
+     */
+    AppointmentCell(BiFunction<Appointment, GroupStatusIndex, AppointmentEntry> entryFactory,
+                    Supplier<GroupStatusIndex> groupStatuses) {
+        this.entryFactory = entryFactory;
+        this.groupStatuses = groupStatuses;
+
+        setStyle("-fx-background-color: transparent; -fx-padding: 5 10 5 10;");
+    }
+
+    @Override
+    protected void updateItem(AppointmentRow row, boolean empty) {
+        super.updateItem(row, empty);
+        setText(null);
+
+        if (empty || row == null) {
+            setGraphic(null);
+        } else if (row.isWeekHeader()) {
+            weekLabel.setText("Woche " + row.getWeek());
+            setGraphic(weekLabel);
+        } else {
+            if (entry == null) {
+                entry = entryFactory.apply(row.getAppointment(), groupStatuses.get());
+                entry.paint();
+            } else {
+                entry.update(row.getAppointment(), groupStatuses.get());
+            }
+            setGraphic(entry);
+        }
+    }
+}
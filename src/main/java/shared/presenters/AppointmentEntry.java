@@ -5,6 +5,7 @@ import javafx.event.EventType;
 import javafx.scene.layout.HBox;
 import javafx.scene.paint.Color;
 import models.Appointment;
+import models.GroupStatusIndex;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -31,6 +32,32 @@ public abstract class AppointmentEntry extends HBox {
      */
     public abstract void paint();
 
+    /**
+     * Replaces the displayed Appointment with freshly loaded data and repaints the component
+     * only if something it displays changed
+     *
+     * @param appointment   the freshly loaded Appointment with the same date
+     * @param groupStatuses the status of the groups, loaded together with the Appointment
+     */
+    public void update(Appointment appointment, GroupStatusIndex groupStatuses) {
+        boolean changed = !this.appointment.hasSameContentAs(appointment);
+        this.appointment = appointment;
+
+        if (updateGroupStatuses(groupStatuses) || changed) {
+            paint();
+        }
+    }
+
+    /**
+     * Hands freshly loaded group statuses to the component
+     *
+     * @param groupStatuses the status of the groups
+     * @return true if the component has to be repainted because of the new statuses, false otherwise
+     */
+    protected boolean updateGroupStatuses(GroupStatusIndex groupStatuses) {
+        return false;
+    }
+
     /**
      * Returns the displayed Appointment
      *
@@ -40,7 +67,11 @@ public abstract class AppointmentEntry extends HBox {
         return appointment;
     }
 
+    /**
+     * Repaints the component after its Appointment was changed and notifies the listeners
+     */
     protected void emitAppointmentUpdated() {
+        paint();
         fireEvent(new Event(APPOINTMENT_UPDATED));
     }
 
@@ -72,11 +103,13 @@ public abstract class AppointmentEntry extends HBox {
     /**
      * Returns the String for the state label
      *
-     * @return a String representation of the state, with information about reservations or bookings
+     * @return a String representation of the state, with information about reservations or bookings if known
      */
     protected String getStateString(){
         String stateString = appointment.getState().toString();
 
+        if (appointment.isTakenByOtherGroup()) return stateString;
+
         switch (appointment.getState()){
             case BOOKED:
                 return stateString + " (" + appointment.getBooking().toString() + ")";
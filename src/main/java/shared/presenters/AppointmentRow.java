@@ -0,0 +1,66 @@
+package shared.presenters;
+
+import models.Appointment;
+
+/**
+ * An item of the virtualized appointment list, either a week header or an Appointment
+ *
+ * Rows are immutable: a changed Appointment is displayed by replacing its row, so only the affected cell is updated.
+ */
+class AppointmentRow {
+    private final int week;
+    private final Appointment appointment;
+
+    private AppointmentRow(int week, Appointment appointment) {
+        this.week = week;
+        this.appointment = appointment;
+    }
+
+    /**
+     * Creates the header row of a week
+     *
+     * @param week the week of the week based year
+     * @return the header row
+     */
+    static AppointmentRow weekHeader(int week) {
+        return new AppointmentRow(week, null);
+    }
+
+    /**
+     * Creates the row of an Appointment
+     *
+     * @param week        the week of the week based year the Appointment is in
+     * @param appointment the Appointment to display
+     * @return the Appointment row
+     */
+    static AppointmentRow appointment(int week, Appointment appointment) {
+        return new AppointmentRow(week, appointment);
+    }
+
+    /**
+     * Determines if the row is a week header
+     *
+     * @return true for week headers, false for Appointment rows
+     */
+    boolean isWeekHeader() {
+        return appointment == null;
+    }
+
+    /**
+     * Gets the week of the row
+     *
+     * @return the week of the week based year
+     */
+    int getWeek() {
+        return week;
+    }
+
+    /**
+     * Gets the displayed Appointment
+     *
+     * @return the Appointment, or null for week headers
+     */
+    Appointment getAppointment() {
+        return appointment;
+    }
+}
@@ -1,20 +1,22 @@
 package shared.presenters;
 
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
 import javafx.event.Event;
 import javafx.event.EventType;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
-import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
+import javafx.scene.control.ListView;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
 import models.Appointment;
+import models.GroupStatusIndex;
 
 import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 import java.time.temporal.WeekFields;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public abstract class Appointments extends AnchorPane {
@@ -22,7 +24,15 @@ public abstract class Appointments extends AnchorPane {
             new EventType<>("APPOINTMENTS_UPDATED");
 
     @FXML
-    VBox entries;
+    ListView<AppointmentRow> entries;
+
+    @FXML
+    Label windowLabel;
+
+    private ScheduleModel scheduleModel;
+    private final Map<LocalDate, AppointmentRow> rowsByDate = new HashMap<>();
+    private final Map<LocalDate, AppointmentRow> weekRows = new HashMap<>();
+    private GroupStatusIndex groupStatuses = GroupStatusIndex.of(Collections.emptyList());
 
     /**
      * Loads the JavaFX view component
@@ -42,43 +52,158 @@ public abstract class Appointments extends AnchorPane {
     }
 
     /**
-     * Puts the group names into the groupsChoice choice box
+     * Sets up the recycled cells of the list
      */
     @FXML
     public void initialize() {
-        showAppointments();
+        entries.setCellFactory(listView -> new AppointmentCell(this::createAppointmentEntry, () -> groupStatuses));
+        addEventHandler(AppointmentEntry.APPOINTMENT_UPDATED, event -> {
+            showAppointments();
+            fireEvent(new Event(APPOINTMENTS_UPDATED));
+        });
     }
 
     /**
-     * Adds the appointments to the view
+     * Binds the view to the schedule it displays
+     *
+     * The view is repainted whenever the Appointments of the model are replaced,
+     * and the model polls for changes while the view is shown.
+     *
+     * @param scheduleModel the schedule model, shared with the other views of the window
+     */
+    public void setScheduleModel(ScheduleModel scheduleModel) {
+        this.scheduleModel = scheduleModel;
+
+        scheduleModel.getAppointments().addListener((ListChangeListener<Appointment>) change ->
+                paintAppointments(scheduleModel.getAppointments(), scheduleModel.getGroupStatuses()));
+        scheduleModel.loadingProperty().addListener((observable, wasLoading, loading) -> Loading.show(this, loading));
+        scheduleModel.windowStartProperty().addListener((observable, oldStart, start) -> paintWindow());
+        scheduleModel.followWhileShown(this);
+
+        paintWindow();
+        paintAppointments(scheduleModel.getAppointments(), scheduleModel.getGroupStatuses());
+    }
+
+    /**
+     * Reloads the schedule, which repaints this and all other views bound to it
      */
     public void showAppointments() {
-        try {
-            entries.getChildren().clear();
-            Map<Integer, List<AppointmentEntry>> groupedAppointmentEntries = Appointment.all().stream()
-                    .map(a -> {
-                        AppointmentEntry entry = createAppointmentEntry(a);
-                        entry.addEventHandler(AppointmentEntry.APPOINTMENT_UPDATED, event -> {
-                            showAppointments();
-                            fireEvent(new Event(APPOINTMENTS_UPDATED));
-                        });
-                        entry.paint();
-                        return entry;
-                    })
-                    .collect(Collectors.groupingBy(e ->
-                            e.getAppointment().getDate().get(WeekFields.of(Locale.GERMAN).weekOfWeekBasedYear())));
-
-            groupedAppointmentEntries.forEach((week, appointmentEntries) -> {
-                entries.getChildren().add(new Label("Woche " + week.toString()));
-                entries.getChildren().addAll(appointmentEntries);
-            });
-        } catch (Exception e) {
-            System.err.println(e.getMessage());
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Termine konnten nicht geladen werden");
-            alert.showAndWait();
-            System.exit(1);
+        scheduleModel.refresh();
+    }
+
+    /**
+     * Shows the week before the current window
+     */
+    @FXML
+    public void showPreviousWeek() {
+        scheduleModel.showPreviousWeek();
+    }
+
+    /**
+     * Shows the week after the current window
+     */
+    @FXML
+    public void showNextWeek() {
+        scheduleModel.showNextWeek();
+    }
+
+    /**
+     * Shows the range of dates of the loaded window
+     */
+    private void paintWindow() {
+        LocalDate start = scheduleModel.windowStartProperty().get();
+
+        if (start == null) {
+            windowLabel.setText("");
+            return;
         }
+
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd.MM.yy");
+        windowLabel.setText(start.format(format) + " – " + scheduleModel.getWindowEnd().format(format));
     }
 
-    protected abstract AppointmentEntry createAppointmentEntry(Appointment appointment);
+    /**
+     * Brings the rows of the list in line with the loaded appointments
+     *
+     * Rows are kept by date: a row is only replaced if its Appointment changed, and rows are only inserted
+     * or removed for added or removed appointments. The visible cells are refreshed if the group statuses changed.
+     *
+     * @param appointments  the appointments to display
+     * @param groupStatuses the status of the groups, loaded together with the appointments
+     */
+    private void paintAppointments(List<Appointment> appointments, GroupStatusIndex groupStatuses) {
+        GroupStatusIndex previousGroupStatuses = this.groupStatuses;
+        this.groupStatuses = groupStatuses;
+
+        List<Appointment> sortedAppointments = appointments.stream()
+                .sorted(Comparator.comparing(Appointment::getDate))
+                .collect(Collectors.toList());
+
+        List<AppointmentRow> rows = new ArrayList<>();
+        Map<LocalDate, AppointmentRow> currentRows = new HashMap<>();
+        Map<LocalDate, AppointmentRow> currentWeekRows = new HashMap<>();
+        WeekFields weekFields = WeekFields.of(Locale.GERMAN);
+
+        for (Appointment appointment : sortedAppointments) {
+            int week = appointment.getDate().get(weekFields.weekOfWeekBasedYear());
+            // Week numbers repeat every year, so the header rows are kept by the first day of their week
+            LocalDate firstDayOfWeek = appointment.getDate().with(weekFields.dayOfWeek(), 1);
+
+            if (!currentWeekRows.containsKey(firstDayOfWeek)) {
+                AppointmentRow weekRow = weekRows.computeIfAbsent(firstDayOfWeek, date -> AppointmentRow.weekHeader(week));
+                currentWeekRows.put(firstDayOfWeek, weekRow);
+                rows.add(weekRow);
+            }
+
+            AppointmentRow row = rowsByDate.get(appointment.getDate());
+
+            if (row == null || !row.getAppointment().hasSameContentAs(appointment)) {
+                row = AppointmentRow.appointment(week, appointment);
+            }
+
+            currentRows.put(appointment.getDate(), row);
+            rows.add(row);
+        }
+
+        rowsByDate.keySet().retainAll(currentRows.keySet());
+        rowsByDate.putAll(currentRows);
+        weekRows.keySet().retainAll(currentWeekRows.keySet());
+
+        syncRows(rows);
+
+        if (!groupStatuses.equals(previousGroupStatuses)) {
+            entries.refresh();
+        }
+    }
+
+    /**
+     * Changes the items of the list to the given rows, removing and inserting only where they differ
+     *
+     * @param rows the rows to display in order
+     */
+    private void syncRows(List<AppointmentRow> rows) {
+        ObservableList<AppointmentRow> displayed = entries.getItems();
+        Set<AppointmentRow> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(rows);
+
+        displayed.removeIf(row -> !kept.contains(row));
+
+        for (int i = 0; i < rows.size(); i++) {
+            AppointmentRow row = rows.get(i);
+
+            if (i < displayed.size() && displayed.get(i) == row) continue;
+
+            displayed.remove(row);
+            displayed.add(i, row);
+        }
+    }
+
+    /**
+     * Creates the component displaying an Appointment
+     *
+     * @param appointment   the Appointment to display
+     * @param groupStatuses the status of the groups, taken from the same refresh as the Appointment
+     * @return the component
+     */
+    protected abstract AppointmentEntry createAppointmentEntry(Appointment appointment, GroupStatusIndex groupStatuses);
 }
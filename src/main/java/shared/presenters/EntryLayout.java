@@ -0,0 +1,85 @@
+package shared.presenters;
+
+import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Region;
+import javafx.scene.text.Font;
+
+/**
+ * Builds the node trees of list entries in code
+ *
+ * Entries are created for every row of a list, so parsing an FXML file for each of them would dominate the render time.
+ */
+public final class EntryLayout {
+    private static final double ENTRY_HEIGHT = 54.0;
+    private static final double ENTRY_SPACING = 30.0;
+    private static final double FONT_SIZE = 15.0;
+    private static final String ENTRY_STYLE = "-fx-background-color: #DFDFDF;";
+
+    private static Font font;
+
+    private EntryLayout() {
+    }
+
+    /**
+     * Sets up an entry row with the shared size, spacing and background
+     *
+     * @param row         the row to set up
+     * @param prefWidth   the preferred width of the row
+     * @param paddingLeft the left padding of the row
+     */
+    public static void setUpRow(HBox row, double prefWidth, double paddingLeft) {
+        row.setAlignment(Pos.CENTER_LEFT);
+        row.setMinSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        row.setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        row.setPrefSize(prefWidth, ENTRY_HEIGHT);
+        row.setSpacing(ENTRY_SPACING);
+        row.setStyle(ENTRY_STYLE);
+
+        if (paddingLeft > 0) {
+            row.setPadding(new Insets(0, 0, 0, paddingLeft));
+        }
+    }
+
+    /**
+     * Creates a label in the entry font
+     *
+     * @param text      the initial text
+     * @param prefWidth the preferred width of the label
+     * @return the label
+     */
+    public static Label label(String text, double prefWidth) {
+        Label label = new Label(text);
+        label.setPrefWidth(prefWidth);
+        label.setFont(getFont());
+        return label;
+    }
+
+    /**
+     * Creates a button
+     *
+     * @param text      the button text
+     * @param prefWidth the preferred width of the button, or Region.USE_COMPUTED_SIZE
+     * @param onAction  the handler called when the button is pressed
+     * @return the button
+     */
+    public static Button button(String text, double prefWidth, EventHandler<ActionEvent> onAction) {
+        Button button = new Button(text);
+        button.setMnemonicParsing(false);
+        button.setPrefWidth(prefWidth);
+        button.setOnAction(onAction);
+        return button;
+    }
+
+    private static Font getFont() {
+        if (font == null) {
+            font = new Font(FONT_SIZE);
+        }
+        return font;
+    }
+}
@@ -0,0 +1,20 @@
+package shared.presenters;
+
+import javafx.scene.Cursor;
+import javafx.scene.Node;
+
+/**
+ * Shows that a component is waiting for data from the repository
+ */
+public class Loading {
+    /**
+     * Disables the component and shows the wait cursor while data is loaded in the background
+     *
+     * @param node    the loading component
+     * @param loading true while loading, false when done
+     */
+    public static void show(Node node, boolean loading) {
+        node.setDisable(loading);
+        node.setCursor(loading ? Cursor.WAIT : null);
+    }
+}
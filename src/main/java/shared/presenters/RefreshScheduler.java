@@ -0,0 +1,76 @@
+package shared.presenters;
+
+import javafx.animation.PauseTransition;
+import javafx.util.Duration;
+
+/**
+ * Coalesces refresh requests arriving within a short window into a single refresh
+ *
+ * The first request opens the window, requests arriving while it is open are suppressed,
+ * and the refresh runs once when the window closes. Must be used on the JavaFX application thread.
+ */
+public class RefreshScheduler {
+    private final Runnable refresh;
+    private final PauseTransition window;
+    private boolean pending = false;
+
+    private long requestedRefreshes = 0;
+    private long performedRefreshes = 0;
+
+    /**
+     * Creates a scheduler
+     *
+     * @param refresh the refresh to run
+     * @param window  the time requests are collected before the refresh runs
+     */
+    public RefreshScheduler(Runnable refresh, Duration window) {
+        this.refresh = refresh;
+        this.window = new PauseTransition(window);
+        this.window.setOnFinished(event -> runRefresh());
+    }
+
+    /**
+     * Requests a refresh, which runs at the end of the current window
+     */
+    public void request() {
+        requestedRefreshes++;
+
+        if (!pending) {
+            pending = true;
+            window.playFromStart();
+        }
+    }
+
+    private void runRefresh() {
+        pending = false;
+        performedRefreshes++;
+        refresh.run();
+    }
+
+    /**
+     * Gets the number of requested refreshes
+     *
+     * @return the number of calls to request
+     */
+    public long getRequestedRefreshes() {
+        return requestedRefreshes;
+    }
+
+    /**
+     * Gets the number of refreshes that actually ran
+     *
+     * @return the number of performed refreshes
+     */
+    public long getPerformedRefreshes() {
+        return performedRefreshes;
+    }
+
+    /**
+     * Gets the number of requests that were merged into another refresh
+     *
+     * @return the number of suppressed refreshes
+     */
+    public long getSuppressedRefreshes() {
+        return requestedRefreshes - performedRefreshes - (pending ? 1 : 0);
+    }
+}
@@ -0,0 +1,344 @@
+package shared.presenters;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.application.Platform;
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.scene.control.Alert;
+import javafx.stage.Window;
+import javafx.util.Duration;
+import models.Appointment;
+import models.ChangeFeed;
+import models.Group;
+import models.GroupStatusIndex;
+import models.ScheduleUpdate;
+import repository.AsyncRepository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The in-memory schedule shared by the views of a window
+ *
+ * Only the Appointments of a window of WINDOW_WEEKS weeks are held, starting with the week of the next Appointment.
+ * The window is fetched in the background whenever it is moved. Afterwards the model follows the change feed of the
+ * repository: on every refresh, and periodically to pick up changes of other clients, only the Appointments within
+ * the window changed since the last applied change are fetched. Views observe the lists instead of loading the data
+ * themselves, so a change costs one fetch no matter how many views display it. All observable state is changed on the
+ * JavaFX application thread. Polling stops while the views of the model are not shown, see followWhileShown.
+ */
+public class ScheduleModel {
+    public static final int WINDOW_WEEKS = 3;
+
+    private static final Duration REFRESH_WINDOW = Duration.millis(100);
+    private static final Duration POLL_INTERVAL = Duration.seconds(5);
+
+    private final ObservableList<Appointment> appointments = FXCollections.observableArrayList();
+    private final ObservableList<Group> groups = FXCollections.observableArrayList();
+    private final ObservableList<Appointment> readOnlyAppointments = FXCollections.unmodifiableObservableList(appointments);
+    private final ObservableList<Group> readOnlyGroups = FXCollections.unmodifiableObservableList(groups);
+    private final ReadOnlyObjectWrapper<GroupStatusIndex> groupStatuses =
+            new ReadOnlyObjectWrapper<>(GroupStatusIndex.of(Collections.emptyList()));
+    private final ReadOnlyBooleanWrapper loading = new ReadOnlyBooleanWrapper(false);
+    private final ReadOnlyObjectWrapper<LocalDate> windowStart = new ReadOnlyObjectWrapper<>();
+
+    private final RefreshScheduler refreshScheduler = new RefreshScheduler(this::synchronize, REFRESH_WINDOW);
+    private final Timeline poller = new Timeline(new KeyFrame(POLL_INTERVAL, event -> refresh()));
+    private int refreshCount = 0;
+    private long changeSequence = -1;
+    private LocalDate requestedWindowStart = null;
+
+    private final InvalidationListener visibilityListener = observable -> updateVisibility();
+    private Node view = null;
+    private Scene observedScene = null;
+    private Window observedWindow = null;
+    private boolean shown = true;
+
+    private final Group viewer;
+
+    /**
+     * Creates a model containing all details of the Appointments of the window and all Groups
+     *
+     * The group statuses are read from the repository, as the Appointments of the window don't contain all of them.
+     */
+    public ScheduleModel() {
+        this(null);
+    }
+
+    /**
+     * Creates a model containing the activated Appointments of the window as shown to the members of a group,
+     * with details only for the group's own reservation or booking, and all Groups
+     *
+     * @param viewer the group of the student
+     */
+    public ScheduleModel(Group viewer) {
+        this.viewer = viewer;
+        poller.setCycleCount(Animation.INDEFINITE);
+    }
+
+    /**
+     * Requests a refresh of the schedule
+     *
+     * Requests arriving within the refresh window, e.g. from several updates in a row, result in a single fetch.
+     */
+    public void refresh() {
+        refreshScheduler.request();
+    }
+
+    /**
+     * Gets the scheduler coalescing the refresh requests, e.g. to read the number of suppressed refreshes
+     *
+     * @return the refresh scheduler
+     */
+    public RefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+
+    /**
+     * Polls for changes only while a view of the model is shown in a window
+     *
+     * Polling stops when the view leaves its scene, its scene leaves its window or the window is hidden,
+     * e.g. because the scene of the window was replaced, and starts again when the view is shown again.
+     *
+     * @param view a view bound to the model
+     */
+    public void followWhileShown(Node view) {
+        this.view = view;
+        view.sceneProperty().addListener(visibilityListener);
+        updateVisibility();
+    }
+
+    private void updateVisibility() {
+        Scene scene = view.getScene();
+        if (scene != observedScene) {
+            if (observedScene != null) observedScene.windowProperty().removeListener(visibilityListener);
+            if (scene != null) scene.windowProperty().addListener(visibilityListener);
+            observedScene = scene;
+        }
+
+        Window window = scene == null ? null : scene.getWindow();
+        if (window != observedWindow) {
+            if (observedWindow != null) observedWindow.showingProperty().removeListener(visibilityListener);
+            if (window != null) window.showingProperty().addListener(visibilityListener);
+            observedWindow = window;
+        }
+
+        shown = window != null && window.isShowing();
+
+        if (!shown) {
+            poller.stop();
+        } else if (changeSequence >= 0) {
+            poller.play();
+        }
+    }
+
+    /**
+     * Moves the window one week back and loads it
+     */
+    public void showPreviousWeek() {
+        moveWindow(-1);
+    }
+
+    /**
+     * Moves the window one week forward and loads it
+     */
+    public void showNextWeek() {
+        moveWindow(1);
+    }
+
+    private void moveWindow(int weeks) {
+        if (requestedWindowStart == null) return;
+
+        requestedWindowStart = requestedWindowStart.plusWeeks(weeks);
+        reload();
+    }
+
+    /**
+     * Loads the window if it was not loaded yet, otherwise applies the changes since the last applied change
+     */
+    private void synchronize() {
+        if (changeSequence < 0 || !Objects.equals(requestedWindowStart, windowStart.get())) {
+            reload();
+            return;
+        }
+
+        final long sequence = changeSequence;
+        final LocalDate start = windowStart.get();
+        final List<Appointment> currentAppointments = new ArrayList<>(appointments);
+
+        update(AsyncRepository.supply(() -> fetchChanges(sequence, start, currentAppointments)), true);
+    }
+
+    /**
+     * Fetches the requested window in the background and replaces the contents of the model with it
+     */
+    private void reload() {
+        final LocalDate start = requestedWindowStart;
+        loading.set(true);
+
+        update(AsyncRepository.supply(() -> fetch(start)), false);
+    }
+
+    /**
+     * Replaces the contents of the model with a fetched snapshot once it arrives
+     *
+     * Results of a fetch are dropped if another fetch was started in the meantime. A failed fetch of changes,
+     * e.g. by a poll during a short network outage, is only logged and retried with the next poll.
+     *
+     * @param fetch       the running fetch, completing with null if nothing changed
+     * @param incremental whether the fetch only reads the changes to the loaded window
+     */
+    private void update(CompletableFuture<Snapshot> fetch, boolean incremental) {
+        final int refresh = ++refreshCount;
+
+        fetch.whenCompleteAsync((snapshot, error) -> {
+            if (refresh != refreshCount) return;
+            loading.set(false);
+
+            if (error != null) {
+                AsyncRepository.unwrap(error).printStackTrace();
+                if (incremental) return;
+
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Termine konnten nicht geladen werden");
+                alert.showAndWait();
+                System.exit(1);
+                return;
+            }
+
+            if (snapshot == null) return;
+
+            changeSequence = snapshot.changeSequence;
+            if (requestedWindowStart == null) requestedWindowStart = snapshot.windowStart;
+            windowStart.set(snapshot.windowStart);
+            groupStatuses.set(snapshot.groupStatuses);
+            groups.setAll(snapshot.groupStatuses.getGroups());
+            appointments.setAll(snapshot.appointments);
+
+            if (shown) poller.play();
+        }, Platform::runLater);
+    }
+
+    private Snapshot fetch(LocalDate start) throws Exception {
+        if (start == null) {
+            start = Appointment.findScheduleDate(LocalDate.now()).orElse(LocalDate.now()).with(DayOfWeek.MONDAY);
+        }
+
+        long sequence = ChangeFeed.latestSequence();
+        List<Appointment> appointments = viewer == null ? Appointment.between(start, getWindowEnd(start)) :
+                Appointment.visibleTo(viewer, start, getWindowEnd(start));
+
+        return new Snapshot(sequence, start, appointments, Group.statuses());
+    }
+
+    /**
+     * Fetches the changes within the window, including the group statuses if anything changed at all,
+     * as a change outside of the window can still change the status of a group
+     */
+    private Snapshot fetchChanges(long sequence, LocalDate start, List<Appointment> currentAppointments)
+            throws Exception {
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, start, getWindowEnd(start), viewer);
+
+        if (update.getSequence() == sequence) return null;
+        if (update.isFullReloadRequired()) return fetch(start);
+
+        List<Appointment> appointments = update.applyTo(currentAppointments);
+
+        return new Snapshot(update.getSequence(), start, appointments, Group.statuses());
+    }
+
+    private static LocalDate getWindowEnd(LocalDate start) {
+        return start.plusWeeks(WINDOW_WEEKS).minusDays(1);
+    }
+
+    /**
+     * Gets the Appointments of the schedule
+     *
+     * @return the Appointments of the window, replaced as a whole on every refresh
+     */
+    public ObservableList<Appointment> getAppointments() {
+        return readOnlyAppointments;
+    }
+
+    /**
+     * Gets the Groups of the schedule
+     *
+     * @return the Groups in display order, replaced as a whole on every refresh
+     */
+    public ObservableList<Group> getGroups() {
+        return readOnlyGroups;
+    }
+
+    /**
+     * Gets the status of the Groups, which is updated before the lists on every refresh
+     *
+     * @return the group statuses
+     */
+    public GroupStatusIndex getGroupStatuses() {
+        return groupStatuses.get();
+    }
+
+    /**
+     * The status of the Groups
+     *
+     * @return the property holding the group statuses
+     */
+    public ReadOnlyObjectProperty<GroupStatusIndex> groupStatusesProperty() {
+        return groupStatuses.getReadOnlyProperty();
+    }
+
+    /**
+     * The first day of the window the Appointments are loaded for
+     *
+     * @return the property holding the Monday the displayed window starts with, null until the first load
+     */
+    public ReadOnlyObjectProperty<LocalDate> windowStartProperty() {
+        return windowStart.getReadOnlyProperty();
+    }
+
+    /**
+     * Gets the last day of the window the Appointments are loaded for
+     *
+     * @return the Sunday the displayed window ends with, or null until the first load
+     */
+    public LocalDate getWindowEnd() {
+        return windowStart.get() == null ? null : getWindowEnd(windowStart.get());
+    }
+
+    /**
+     * Whether a refresh is running
+     *
+     * @return the property which is true while the schedule is fetched
+     */
+    public ReadOnlyBooleanProperty loadingProperty() {
+        return loading.getReadOnlyProperty();
+    }
+
+    private static class Snapshot {
+        private final long changeSequence;
+        private final LocalDate windowStart;
+        private final List<Appointment> appointments;
+        private final GroupStatusIndex groupStatuses;
+
+        private Snapshot(long changeSequence, LocalDate windowStart, List<Appointment> appointments,
+                         GroupStatusIndex groupStatuses) {
+            this.changeSequence = changeSequence;
+            this.windowStart = windowStart;
+            this.appointments = appointments;
+            this.groupStatuses = groupStatuses;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package student.presenters;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
 import javafx.event.Event;
 import javafx.event.EventType;
@@ -12,6 +13,8 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
 import javafx.stage.Stage;
 import models.*;
+import repository.AsyncRepository;
+import shared.presenters.Loading;
 
 import java.io.IOException;
 import java.time.LocalTime;
@@ -73,33 +76,67 @@ public class BookingDialog extends AnchorPane {
     }
 
     /**
-     * Books the Appointment
+     * Books the Appointment through a copy, which the shown Appointment takes over once the booking is written
      * @param event The event that caused the method to be called
      */
     public void book(ActionEvent event){
+        LocalTime startTime;
+
         try {
             int hour = hourField.getText().equals("") ? 0 : Integer.parseInt(hourField.getText());
             int minute = minuteField.getText().equals("") ? 0 : Integer.parseInt(minuteField.getText());
 
-            LocalTime startTime = LocalTime.of(hour, minute);
-
-            appointment.book(activeGroup,startTime);
-
-            fireEvent(new Event(APPOINTMENT_UPDATED));
-
-            ((Stage) ((Node) event.getSource()).getScene().getWindow()).close();
+            startTime = LocalTime.of(hour, minute);
         }
         catch (IllegalArgumentException e) {
             Alert alert = new Alert(Alert.AlertType.ERROR,"Bitte geben Sie eine gültige Startzeit ein");
-        }
-        catch (OperationNotAllowedException e) {
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Die Startzeit muss im Zeitfenster liegen");
             alert.showAndWait();
+            return;
         }
-        catch (Exception e){
-            Alert alert = new Alert(Alert.AlertType.ERROR,"Fehler beim Erstellen der Buchung");
-            alert.showAndWait();
-            System.exit(1);
+
+        Stage window = (Stage) ((Node) event.getSource()).getScene().getWindow();
+        final Appointment booked = appointment.copy();
+        Loading.show(this, true);
+
+        AsyncRepository.run(() -> booked.book(activeGroup, startTime)).whenCompleteAsync((result, error) -> {
+            Loading.show(this, false);
+
+            if (error == null) {
+                appointment.takeOver(booked);
+                fireEvent(new Event(APPOINTMENT_UPDATED));
+
+                window.close();
+            }
+            else if (AsyncRepository.unwrap(error) instanceof OperationNotAllowedException) {
+                OperationNotAllowedException rejection = (OperationNotAllowedException) AsyncRepository.unwrap(error);
+                Alert alert = new Alert(Alert.AlertType.ERROR, rejectionMessage(rejection.getReason()));
+                alert.showAndWait();
+            }
+            else {
+                Alert alert = new Alert(Alert.AlertType.ERROR,"Fehler beim Erstellen der Buchung");
+                alert.showAndWait();
+                System.exit(1);
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Gets the message shown for a rejected booking
+     * @param reason The reason the booking was rejected
+     * @return The message describing the reason
+     */
+    private static String rejectionMessage(OperationNotAllowedException.Reason reason) {
+        switch (reason) {
+            case NOT_ACTIVATED:
+                return "Der Termin ist nicht freigegeben";
+            case TAKEN:
+                return "Der Termin ist bereits vergeben";
+            case GROUP_HAS_APPOINTMENT:
+                return "Ihre Gruppe hat bereits einen Termin gebucht";
+            case OUTSIDE_TIME_WINDOW:
+                return "Die Startzeit muss im Zeitfenster liegen";
+            default:
+                return "Der Termin kann nicht gebucht werden";
         }
     }
 
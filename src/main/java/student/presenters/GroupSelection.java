@@ -1,5 +1,6 @@
 package student.presenters;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -9,8 +10,7 @@ import javafx.scene.control.Alert;
 import javafx.scene.control.ChoiceBox;
 import javafx.stage.Stage;
 import models.Group;
-
-import java.util.List;
+import repository.AsyncRepository;
 
 public class GroupSelection {
     @FXML
@@ -21,18 +21,21 @@ public class GroupSelection {
      */
     @FXML
     public void initialize() {
-        List<Group> groups = null;
-        try {
-            groups = Group.all();
-        } catch (Exception e) {
-            Alert alert = new Alert(Alert.AlertType.ERROR,
-                    "Fehler bei Datenbankverbindung");
-            alert.showAndWait();
+        groupsChoice.setDisable(true);
+
+        AsyncRepository.supply(Group::all).whenCompleteAsync((groups, error) -> {
+            if (error != null) {
+                Alert alert = new Alert(Alert.AlertType.ERROR,
+                        "Fehler bei Datenbankverbindung");
+                alert.showAndWait();
 
-            System.exit(2);
-        }
+                System.exit(2);
+                return;
+            }
 
-        groupsChoice.setItems(FXCollections.observableArrayList(groups));
+            groupsChoice.setItems(FXCollections.observableArrayList(groups));
+            groupsChoice.setDisable(false);
+        }, Platform::runLater);
     }
 
     /**
@@ -1,8 +1,8 @@
 package student.presenters;
 
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
+import javafx.event.Event;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
@@ -12,49 +12,57 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 import models.Appointment;
 import models.Group;
+import models.GroupStatusIndex;
+import repository.AsyncRepository;
+import repository.ConcurrentUpdateException;
 import shared.presenters.AppointmentEntry;
-
-import java.io.IOException;
+import shared.presenters.EntryLayout;
+import shared.presenters.Loading;
 
 public class StudentAppointmentEntry extends AppointmentEntry {
 
-    @FXML
     Label daylabel;
 
-    @FXML
     Label notelabel;
 
-    @FXML
     Label statelabel;
 
-    @FXML
     Button reservationbutton;
 
-    @FXML
     Button bookbutton;
 
     private Group activeGroup;
+    private GroupStatusIndex groupStatuses;
 
     /**
      * Creates an StudentAppointmentEntry component
      *
-     * @param activeGroup The currently selected Group
-     * @param appointment The Appointment to display
+     * @param activeGroup   The currently selected Group
+     * @param appointment   The Appointment to display
+     * @param groupStatuses The status of the groups, loaded together with the Appointment
      */
-    public StudentAppointmentEntry(Group activeGroup, Appointment appointment) {
+    public StudentAppointmentEntry(Group activeGroup, Appointment appointment, GroupStatusIndex groupStatuses) {
         super(appointment);
 
         this.activeGroup = activeGroup;
+        this.groupStatuses = groupStatuses;
 
-        FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("/student/views/StudentAppointmentEntry.fxml"));
-        fxmlLoader.setRoot(this);
-        fxmlLoader.setController(this);
+        EntryLayout.setUpRow(this, 1000.0, 15.0);
 
-        try {
-            fxmlLoader.load();
-        } catch (IOException exception) {
-            throw new RuntimeException(exception);
-        }
+        daylabel = EntryLayout.label("Day", 120.0);
+        reservationbutton = EntryLayout.button("Reservieren", 140.0, this::changeReservation);
+        bookbutton = EntryLayout.button("Buchen", 130.0, this::book);
+        notelabel = EntryLayout.label("Comment", 289.0);
+        statelabel = EntryLayout.label("Frei", 350.0);
+
+        getChildren().addAll(daylabel, reservationbutton, bookbutton, notelabel, statelabel);
+    }
+
+    @Override
+    protected boolean updateGroupStatuses(GroupStatusIndex groupStatuses) {
+        boolean changed = groupStatuses.getStatus(activeGroup) != this.groupStatuses.getStatus(activeGroup);
+        this.groupStatuses = groupStatuses;
+        return changed;
     }
 
     /**
@@ -77,7 +85,7 @@ public class StudentAppointmentEntry extends AppointmentEntry {
                 break;
             }
             case RESERVED: {
-                if (appointment.getReservation().getGroup().equals(activeGroup)) {
+                if (activeGroup.equals(appointment.getGroup())) {
                     reservationbutton.setText("Stornieren");
                     reservationbutton.setVisible(true);
                     bookbutton.setVisible(true);
@@ -88,23 +96,23 @@ public class StudentAppointmentEntry extends AppointmentEntry {
                 break;
             }
             case FREE: {
-                try {
-                    if (activeGroup.hasReservation()) {
+                switch (groupStatuses.getStatus(activeGroup)) {
+                    case RESERVED: {
                         reservationbutton.setVisible(false);
                         bookbutton.setVisible(true);
-                    } else if (activeGroup.hasBooking()) {
+                        break;
+                    }
+                    case BOOKED: {
                         reservationbutton.setVisible(false);
                         bookbutton.setVisible(false);
-                    } else {
+                        break;
+                    }
+                    case NONE: {
                         reservationbutton.setText("Reservieren");
                         reservationbutton.setVisible(true);
                         bookbutton.setVisible(true);
+                        break;
                     }
-                } catch (Exception e) {
-                    System.err.println(e.getMessage());
-                    Alert alert = new Alert(Alert.AlertType.ERROR, "Gruppeninformationen konnten nicht geladen werden");
-                    alert.showAndWait();
-                    System.exit(1);
                 }
                 break;
             }
@@ -114,23 +122,43 @@ public class StudentAppointmentEntry extends AppointmentEntry {
     /**
      * Event Handler for changing the reservation state (reserve or cancel)
      *
+     * The change is written through a copy of the Appointment in the background, the shown Appointment
+     * takes it over on the FX application thread afterwards.
+     *
      * @param event The event that caused the method to be called
      */
     public void changeReservation(ActionEvent event) {
-        try {
-            if (appointment.getState() == Appointment.State.RESERVED) {
-                appointment.cancelReservation();
-                emitAppointmentUpdated();
-            } else if (appointment.getState() == Appointment.State.FREE) {
-                appointment.reserve(activeGroup);
-                emitAppointmentUpdated();
+        final Appointment changed = appointment.copy();
+        Loading.show(this, true);
+
+        AsyncRepository.run(() -> {
+            if (changed.getState() == Appointment.State.RESERVED) {
+                changed.cancelReservation();
+            } else if (changed.getState() == Appointment.State.FREE) {
+                changed.reserve(activeGroup);
             }
-        } catch (Exception e) {
-            System.err.println(e.getMessage());
-            Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht aktualisiert werden");
-            alert.showAndWait();
-            System.exit(1);
-        }
+        }).whenCompleteAsync((result, error) -> {
+            Loading.show(this, false);
+
+            if (error != null && AsyncRepository.unwrap(error) instanceof ConcurrentUpdateException) {
+                Alert alert = new Alert(Alert.AlertType.WARNING,
+                        "Der Termin wurde zwischenzeitlich geändert, bitte versuchen Sie es erneut");
+                alert.showAndWait();
+                fireEvent(new Event(APPOINTMENT_UPDATED));
+                return;
+            }
+
+            if (error != null) {
+                System.err.println(AsyncRepository.unwrap(error).getMessage());
+                Alert alert = new Alert(Alert.AlertType.ERROR, "Termin konnte nicht aktualisiert werden");
+                alert.showAndWait();
+                System.exit(1);
+                return;
+            }
+
+            appointment.takeOver(changed);
+            emitAppointmentUpdated();
+        }, Platform::runLater);
     }
 
     /**
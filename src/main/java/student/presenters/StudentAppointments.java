@@ -2,8 +2,10 @@ package student.presenters;
 
 import models.Appointment;
 import models.Group;
+import models.GroupStatusIndex;
 import shared.presenters.Appointments;
 import shared.presenters.AppointmentEntry;
+import shared.presenters.ScheduleModel;
 
 public class StudentAppointments extends Appointments {
     private Group group;
@@ -16,10 +18,14 @@ public class StudentAppointments extends Appointments {
     public StudentAppointments(Group group) {
         this.group = group;
         initializeView();
+
+        ScheduleModel scheduleModel = new ScheduleModel(group);
+        setScheduleModel(scheduleModel);
+        scheduleModel.refresh();
     }
 
     @Override
-    protected AppointmentEntry createAppointmentEntry(Appointment appointment) {
-        return new StudentAppointmentEntry(group, appointment);
+    protected AppointmentEntry createAppointmentEntry(Appointment appointment, GroupStatusIndex groupStatuses) {
+        return new StudentAppointmentEntry(group, appointment, groupStatuses);
     }
 }
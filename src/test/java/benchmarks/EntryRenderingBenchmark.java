@@ -0,0 +1,116 @@
+package benchmarks;
+
+import admin.presenters.AdminAppointmentEntry;
+import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.fxml.FXML;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.layout.HBox;
+import javafx.stage.Stage;
+import models.Appointment;
+import models.TimeWindow;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares the time needed to build admin appointment entries by parsing their FXML for every entry
+ * with building them in code
+ *
+ * Run as a JavaFX application, e.g. from the IDE. The numbers are printed to stdout.
+ */
+public class EntryRenderingBenchmark extends Application {
+    private static final int ENTRIES = 300;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    /**
+     * The controller of the FXML variant, holding the same nodes as an AdminAppointmentEntry
+     */
+    public static class FxmlEntryController {
+        @FXML
+        public Label daylabel;
+
+        @FXML
+        public Button editbutton;
+
+        @FXML
+        public Label notelabel;
+
+        @FXML
+        public Label statelabel;
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+
+    @Override
+    public void start(Stage primaryStage) throws Exception {
+        List<Appointment> appointments = createAppointments();
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            buildWithFxml(appointments);
+            buildInCode(appointments);
+        }
+
+        report("FXML per entry", measure(() -> buildWithFxml(appointments)));
+        report("Built in code", measure(() -> buildInCode(appointments)));
+
+        Platform.exit();
+    }
+
+    private interface Round {
+        void run() throws IOException;
+    }
+
+    private static long measure(Round round) throws IOException {
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            round.run();
+        }
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    private static void report(String variant, long nanosPerRound) {
+        double millis = nanosPerRound / 1_000_000.0;
+        System.out.printf("%-16s %8.2f ms per %d entries, %10.0f entries/s%n",
+                variant, millis, ENTRIES, ENTRIES / (millis / 1000.0));
+    }
+
+    private static void buildWithFxml(List<Appointment> appointments) throws IOException {
+        for (Appointment appointment : appointments) {
+            FxmlEntryController controller = new FxmlEntryController();
+            FXMLLoader fxmlLoader = new FXMLLoader(EntryRenderingBenchmark.class.getResource("/benchmarks/FxmlAppointmentEntry.fxml"));
+            fxmlLoader.setRoot(new HBox());
+            fxmlLoader.setController(controller);
+            fxmlLoader.load();
+
+            controller.daylabel.setText(appointment.getDate().toString());
+            controller.notelabel.setText(appointment.getNote());
+            controller.statelabel.setText(appointment.getState().toString());
+        }
+    }
+
+    private static void buildInCode(List<Appointment> appointments) {
+        for (Appointment appointment : appointments) {
+            new AdminAppointmentEntry(appointment).paint();
+        }
+    }
+
+    private static List<Appointment> createAppointments() throws Exception {
+        List<Appointment> appointments = new ArrayList<>();
+        TimeWindow timeWindow = TimeWindow.of(LocalTime.of(8, 0), LocalTime.of(16, 0));
+        LocalDate date = LocalDate.of(2018, 1, 1);
+
+        for (int i = 0; i < ENTRIES; i++) {
+            appointments.add(new Appointment(date.plusDays(i), timeWindow, "Note " + i, Appointment.State.FREE));
+        }
+        return appointments;
+    }
+}
@@ -0,0 +1,196 @@
+package models;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import repository.ConcurrentUpdateException;
+import repository.Repositories;
+import repository.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+import static testsupport.TestSupport.setStaticValue;
+
+@RunWith(MockitoJUnitRunner.class)
+public class AppointmentTest {
+    private static final LocalDate DATE = LocalDate.of(2018, 6, 4);
+
+    @Mock
+    private Repository repositoryMock;
+
+    private Set<Appointment.Field> writtenFields;
+
+    @Before
+    public void setUp() throws Exception {
+        setStaticValue(Repositories.class, "instance", repositoryMock);
+
+        doAnswer(invocation -> {
+            writtenFields = EnumSet.copyOf(((Appointment) invocation.getArguments()[0]).getChangedFields());
+            return null;
+        }).when(repositoryMock).updateAppointment(any());
+    }
+
+    private static TimeWindow defaultTimeWindow() throws InvalidTimeWindowException {
+        return TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+    }
+
+    @Test
+    public void shouldOnlyWriteTheChangedNote() throws Exception {
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.FREE);
+
+        appointment.setNote("Raum Z 211");
+
+        assertThat(writtenFields).containsOnly(Appointment.Field.NOTE);
+        assertThat(appointment.getChangedFields()).isEmpty();
+    }
+
+    @Test
+    public void shouldRememberThePersistedStateUntilTheUpdateIsWritten() throws Exception {
+        final Group group = new Group(2);
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null,
+                Appointment.State.RESERVED, new Reservation(group));
+        doAnswer(invocation -> {
+            assertThat(appointment.getPersistedState()).isEqualTo(Appointment.State.RESERVED);
+            assertThat(appointment.getPersistedGroup()).isEqualTo(group);
+            return null;
+        }).when(repositoryMock).updateAppointment(appointment);
+
+        appointment.setFree();
+
+        assertThat(appointment.getPersistedState()).isEqualTo(Appointment.State.FREE);
+        assertThat(appointment.getPersistedGroup()).isNull();
+    }
+
+    @Test
+    public void shouldBookWithASingleRepositoryCall() throws Exception {
+        final Group group = new Group(2);
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null,
+                Appointment.State.RESERVED, new Reservation(group));
+        final Booking booking = new Booking(group, TimeWindow.of(LocalTime.of(10, 0)), null);
+        when(repositoryMock.book(DATE, group, LocalTime.of(10, 0))).thenReturn(
+                new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.BOOKED, booking));
+
+        appointment.book(group, LocalTime.of(10, 0));
+
+        verify(repositoryMock, never()).findAppointmentForGroup(anyInt());
+        verify(repositoryMock, never()).updateAppointment(any());
+        assertThat(appointment.getState()).isEqualTo(Appointment.State.BOOKED);
+        assertThat(appointment.getBooking()).isSameAs(booking);
+        assertThat(appointment.hasChanges()).isFalse();
+    }
+
+    @Test
+    public void shouldKeepTheStateWhenTheRepositoryRejectsTheBooking() throws Exception {
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.FREE);
+        when(repositoryMock.book(any(), any(), any()))
+                .thenThrow(new OperationNotAllowedException(OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT));
+
+        assertThatThrownBy(() -> appointment.book(new Group(2), LocalTime.of(10, 0)))
+                .isInstanceOf(OperationNotAllowedException.class)
+                .hasMessage(OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT.name());
+
+        assertThat(appointment.getState()).isEqualTo(Appointment.State.FREE);
+    }
+
+    @Test
+    public void shouldWriteAllChangesOfAUnitOfWorkWithOneUpdate() throws Exception {
+        final Booking booking = new Booking(new Group(2), TimeWindow.of(LocalTime.of(9, 0)), null);
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.BOOKED, booking);
+        final AppointmentUnitOfWork changes = new AppointmentUnitOfWork(appointment);
+
+        changes.setNote("Verschoben");
+        changes.setTimeWindow(TimeWindow.of(LocalTime.of(8, 0), LocalTime.of(16, 0)));
+        changes.setBookingRoom("Z 211");
+        changes.setBookingTimeWindow(TimeWindow.of(LocalTime.of(9, 30)));
+
+        verify(repositoryMock, never()).updateAppointment(any());
+
+        changes.commit();
+
+        verify(repositoryMock, times(1)).updateAppointment(appointment);
+        verify(repositoryMock, never()).updateBooking(any());
+        assertThat(writtenFields).containsOnly(Appointment.Field.NOTE, Appointment.Field.TIME_WINDOW);
+        assertThat(changes.hasChanges()).isFalse();
+        assertThat(booking.isChanged()).isFalse();
+    }
+
+    @Test
+    public void shouldLeaveTheAppointmentUntouchedUntilAUnitOfWorkIsCommitted() throws Exception {
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.FREE);
+        final AppointmentUnitOfWork abandoned = new AppointmentUnitOfWork(appointment);
+
+        abandoned.setNote("Verworfen");
+        assertThat(appointment.getNote()).isNull();
+        assertThat(appointment.hasChanges()).isFalse();
+
+        appointment.deactivate();
+
+        assertThat(writtenFields).containsOnly(Appointment.Field.STATE);
+    }
+
+    @Test
+    public void shouldRestoreTheAppointmentWhenTheUnitOfWorkCantBeWritten() throws Exception {
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.FREE);
+        final AppointmentUnitOfWork changes = new AppointmentUnitOfWork(appointment);
+        doThrow(new ConcurrentUpdateException("Outdated")).when(repositoryMock).updateAppointment(any());
+
+        changes.setNote("Verschoben");
+
+        assertThatThrownBy(changes::commit).isInstanceOf(ConcurrentUpdateException.class);
+        assertThat(appointment.getNote()).isNull();
+        assertThat(appointment.hasChanges()).isFalse();
+    }
+
+    @Test
+    public void shouldOnlyChangeTheShownAppointmentWhenItTakesOverTheCopy() throws Exception {
+        final Appointment shown = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.FREE);
+        final Appointment copy = shown.copy();
+        when(repositoryMock.findAppointmentForGroup(anyInt())).thenReturn(Optional.empty());
+
+        copy.reserve(new Group(2));
+        assertThat(shown.getState()).isEqualTo(Appointment.State.FREE);
+
+        shown.takeOver(copy);
+
+        assertThat(shown.getState()).isEqualTo(Appointment.State.RESERVED);
+        assertThat(shown.getGroup()).isEqualTo(new Group(2));
+        assertThat(shown.hasChanges()).isFalse();
+    }
+
+    @Test
+    public void shouldReuseCachedAppointmentsWhileTheScheduleIsUnchanged() throws Exception {
+        final Appointment appointment = new Appointment(DATE, defaultTimeWindow(), null, Appointment.State.FREE);
+        when(repositoryMock.getLatestChangeSequence()).thenReturn(3L);
+        when(repositoryMock.getAppointments(DATE, DATE.plusDays(20))).thenReturn(Collections.singletonList(appointment));
+
+        Appointment.between(DATE, DATE.plusDays(20));
+        List<Appointment> result = Appointment.between(DATE, DATE.plusDays(20));
+
+        assertThat(result).containsExactly(appointment);
+        verify(repositoryMock, times(1)).getAppointments(DATE, DATE.plusDays(20));
+    }
+
+    @Test
+    public void shouldFetchAppointmentsAgainWhenTheScheduleChanged() throws Exception {
+        when(repositoryMock.getLatestChangeSequence()).thenReturn(3L, 4L);
+        when(repositoryMock.getAppointments(DATE, DATE.plusDays(20))).thenReturn(Collections.emptyList());
+
+        Appointment.between(DATE, DATE.plusDays(20));
+        Appointment.between(DATE, DATE.plusDays(20));
+
+        verify(repositoryMock, times(2)).getAppointments(DATE, DATE.plusDays(20));
+    }
+}
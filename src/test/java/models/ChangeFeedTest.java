@@ -0,0 +1,116 @@
+package models;
+
+import org.junit.Before;
+import org.junit.Test;
+import repository.DBRepository;
+import repository.Repositories;
+import repository.Repository;
+import repository.TestDatabase;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+import static testsupport.TestSupport.setStaticValue;
+
+public class ChangeFeedTest {
+    private static final LocalDate MONDAY = LocalDate.of(2018, 6, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2018, 6, 5);
+
+    private DBRepository repository;
+    private long sequence;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = TestDatabase.create();
+        setStaticValue(Repositories.class, "instance", repository);
+
+        TimeWindow timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+        repository.insertGroups(1, 2);
+        repository.insertAppointments(Arrays.asList(
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE),
+                new Appointment(TUESDAY, timeWindow, null, Appointment.State.FREE)));
+
+        sequence = ChangeFeed.latestSequence();
+    }
+
+    private Appointment find(List<Appointment> appointments, LocalDate date) {
+        return appointments.stream().filter(appointment -> appointment.getDate().equals(date)).findFirst().get();
+    }
+
+    @Test
+    public void shouldReturnAnEmptyUpdateWithoutChanges() throws Exception {
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, MONDAY, TUESDAY, null);
+
+        assertThat(update.isEmpty()).isTrue();
+        assertThat(update.getSequence()).isEqualTo(sequence);
+    }
+
+    @Test
+    public void shouldOnlyContainTheChangedAppointment() throws Exception {
+        List<Appointment> appointments = Appointment.between(MONDAY, TUESDAY);
+        find(appointments, MONDAY).reserve(new Group(1));
+
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, MONDAY, TUESDAY, null);
+
+        assertThat(update.isFullReloadRequired()).isFalse();
+        assertThat(update.getSequence()).isGreaterThan(sequence);
+        assertThat(update.getChangedAppointments().keySet()).containsExactly(MONDAY);
+        assertThat(update.getChangedAppointments().get(MONDAY).getState()).isEqualTo(Appointment.State.RESERVED);
+
+        List<Appointment> updated = update.applyTo(appointments);
+        assertThat(updated).hasSize(2);
+        assertThat(find(updated, TUESDAY)).isSameAs(find(appointments, TUESDAY));
+    }
+
+    @Test
+    public void shouldReadAllChangedAppointmentsWithASingleQuery() throws Exception {
+        List<Appointment> appointments = Appointment.between(MONDAY, TUESDAY);
+        find(appointments, MONDAY).reserve(new Group(1));
+        find(appointments, TUESDAY).reserve(new Group(2));
+        Repository spiedRepository = spy(repository);
+        setStaticValue(Repositories.class, "instance", spiedRepository);
+
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, MONDAY, TUESDAY, null);
+
+        assertThat(update.getChangedAppointments().keySet()).containsOnly(MONDAY, TUESDAY);
+        verify(spiedRepository, times(1)).getAppointments(MONDAY, TUESDAY);
+        verify(spiedRepository, never()).getAppointment(any());
+    }
+
+    @Test
+    public void shouldContainTheAppointmentsOfADeletedGroup() throws Exception {
+        find(Appointment.between(MONDAY, TUESDAY), TUESDAY).reserve(new Group(2));
+        sequence = ChangeFeed.latestSequence();
+
+        Group.delete(new Group(2));
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, MONDAY, TUESDAY, null);
+
+        assertThat(update.haveGroupsChanged()).isTrue();
+        assertThat(update.getChangedAppointments().keySet()).containsExactly(TUESDAY);
+        assertThat(update.getChangedAppointments().get(TUESDAY).getState()).isEqualTo(Appointment.State.FREE);
+    }
+
+    @Test
+    public void shouldRequireAFullReloadAfterTheScheduleWasGenerated() throws Exception {
+        repository.deleteAppointments(MONDAY, TUESDAY);
+
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, MONDAY, TUESDAY, null);
+
+        assertThat(update.isFullReloadRequired()).isTrue();
+    }
+
+    @Test
+    public void shouldSkipChangesOutsideOfTheRange() throws Exception {
+        find(Appointment.between(MONDAY, TUESDAY), TUESDAY).reserve(new Group(1));
+
+        ScheduleUpdate update = ChangeFeed.changesAfter(sequence, MONDAY, MONDAY, null);
+
+        assertThat(update.isEmpty()).isTrue();
+        assertThat(update.getSequence()).isGreaterThan(sequence);
+    }
+}
@@ -7,36 +7,45 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import repository.DBRepository;
+import repository.Repositories;
+import repository.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.*;
 import static testsupport.TestSupport.setStaticValue;
 
 @RunWith(MockitoJUnitRunner.class)
 public class GroupTest {
     @Mock
-    private DBRepository dbRepositoryMock;
+    private Repository repositoryMock;
 
     @Captor
     private ArgumentCaptor<Group> groupCaptor;
 
     @Before
     public void setUp() throws Exception {
-        setStaticValue(DBRepository.class, "instance", dbRepositoryMock);
+        setStaticValue(Repositories.class, "instance", repositoryMock);
     }
 
     @Test
     public void shouldReturnDatabaseDataWhenAccessingAll() throws Exception {
         List<Group> resultList = Collections.emptyList();
-        when(dbRepositoryMock.getGroups()).thenReturn(resultList);
+        when(repositoryMock.getGroups()).thenReturn(resultList);
 
         List<Group> result = Group.all();
 
@@ -49,23 +58,18 @@ public class GroupTest {
 
         Group.generate(NUMBER_OF_GROUPS);
 
-        verify(dbRepositoryMock, times(1)).deleteAllGroups();
-
-        inOrder(dbRepositoryMock).verify(dbRepositoryMock, times(NUMBER_OF_GROUPS)).insertGroup(groupCaptor.capture());
-
-        List<Group> insertedGroups = groupCaptor.getAllValues();
-        IntStream.range(1, NUMBER_OF_GROUPS+1).forEach(groupNumber ->  {
-            Group group = insertedGroups.get(groupNumber - 1);
-            assertThat(group.getNumber()).isEqualTo(groupNumber);
-        });
+        verify(repositoryMock, times(1)).replaceGroups(1, NUMBER_OF_GROUPS);
+        verify(repositoryMock, never()).deleteAllGroups();
+        verify(repositoryMock, never()).insertGroup(any());
     }
 
     @Test
     public void shouldThrowIfLessThanOneGroupShouldBeGenerated() throws Exception {
         assertThatThrownBy(() -> Group.generate(0)).isInstanceOf(IllegalArgumentException.class);
 
-        verify(dbRepositoryMock, never()).deleteAllGroups();
-        verify(dbRepositoryMock, never()).insertGroup(any());
+        verify(repositoryMock, never()).deleteAllGroups();
+        verify(repositoryMock, never()).insertGroup(any());
+        verify(repositoryMock, never()).replaceGroups(anyInt(), anyInt());
     }
 
     @Test
@@ -74,7 +78,7 @@ public class GroupTest {
 
         Group.delete(group);
 
-        verify(dbRepositoryMock, only()).deleteGroup(groupCaptor.capture());
+        verify(repositoryMock, only()).deleteGroup(groupCaptor.capture());
         assertThat(groupCaptor.getValue()).isEqualTo(group);
     }
 
@@ -82,11 +86,11 @@ public class GroupTest {
     public void shouldCreateANewGroupCorrectlyIfGroupsAreConsecutive() throws Exception {
         final int NEXT_GROUP_NUMBER = 4;
         final List<Group> groups = IntStream.range(1, NEXT_GROUP_NUMBER).mapToObj(Group::new).collect(Collectors.toList());
-        when(dbRepositoryMock.getGroups()).thenReturn(groups);
+        when(repositoryMock.getGroups()).thenReturn(groups);
 
         final Group result = Group.create();
 
-        verify(dbRepositoryMock, times(1)).insertGroup(groupCaptor.capture());
+        verify(repositoryMock, times(1)).insertGroup(groupCaptor.capture());
         assertThat(groupCaptor.getValue().getNumber()).isEqualTo(NEXT_GROUP_NUMBER);
         assertThat(result.getNumber()).isEqualTo(NEXT_GROUP_NUMBER);
     }
@@ -95,11 +99,11 @@ public class GroupTest {
     public void shouldCreateANewGroupCorrectlyIfGroupsAreNotConsecutive() throws Exception {
         final int NEXT_GROUP_NUMBER = 4;
         final List<Group> groups = IntStream.range(1, NEXT_GROUP_NUMBER).filter(i -> i != 2).mapToObj(Group::new).collect(Collectors.toList());
-        when(dbRepositoryMock.getGroups()).thenReturn(groups);
+        when(repositoryMock.getGroups()).thenReturn(groups);
 
         final Group result = Group.create();
 
-        verify(dbRepositoryMock, times(1)).insertGroup(groupCaptor.capture());
+        verify(repositoryMock, times(1)).insertGroup(groupCaptor.capture());
         assertThat(result.getNumber()).isEqualTo(NEXT_GROUP_NUMBER);
         assertThat(groupCaptor.getValue()).isEqualTo(result);
     }
@@ -109,4 +113,61 @@ public class GroupTest {
         assertThat(new Group(1).equals(new Group(1))).isTrue();
         assertThat(new Group(1).equals(new Group(2))).isFalse();
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldLookUpTheGroupsAppointmentByGroupNumber() throws Exception {
+        final Group group = new Group(3);
+        final Appointment appointment = new Appointment(LocalDate.of(2018, 6, 4),
+                TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40)), null,
+                Appointment.State.RESERVED, new Reservation(group));
+        when(repositoryMock.findAppointmentForGroup(3)).thenReturn(Optional.of(appointment));
+
+        assertThat(group.getAppointment().get()).isSameAs(appointment);
+        assertThat(group.hasReservation()).isTrue();
+        assertThat(group.hasBooking()).isFalse();
+        verify(repositoryMock, never()).getAppointments(any(LocalDate.class), any(LocalDate.class));
+    }
+
+    @Test
+    public void shouldHaveNeitherReservationNorBookingWithoutAppointment() throws Exception {
+        final Group group = new Group(3);
+        when(repositoryMock.findAppointmentForGroup(3)).thenReturn(Optional.empty());
+
+        assertThat(group.getAppointment().isPresent()).isFalse();
+        assertThat(group.hasReservation()).isFalse();
+        assertThat(group.hasBooking()).isFalse();
+    }
+
+    @Test
+    public void shouldLoadAllGroupStatusesWithASingleQuery() throws Exception {
+        final Map<Group, GroupStatus> statuses = new LinkedHashMap<>();
+        statuses.put(new Group(1), GroupStatus.BOOKED);
+        statuses.put(new Group(2), GroupStatus.NONE);
+        statuses.put(new Group(3), GroupStatus.RESERVED);
+        when(repositoryMock.getGroupStatuses()).thenReturn(statuses);
+
+        final GroupStatusIndex result = Group.statuses();
+
+        verify(repositoryMock, times(1)).getGroupStatuses();
+        verify(repositoryMock, never()).findAppointmentForGroup(anyInt());
+        assertThat(result.getGroups()).containsExactly(new Group(1), new Group(2), new Group(3));
+        assertThat(result.getStatus(new Group(1))).isEqualTo(GroupStatus.BOOKED);
+        assertThat(result.getStatus(new Group(3))).isEqualTo(GroupStatus.RESERVED);
+        assertThat(result.getStatus(new Group(4))).isEqualTo(GroupStatus.NONE);
+    }
+
+    @Test
+    public void shouldOrderTheGroupsOfAnIndexByNumber() throws Exception {
+        final TimeWindow timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+        final List<Appointment> appointments = new ArrayList<>();
+        for (int number = 40; number > 0; number--) {
+            appointments.add(new Appointment(LocalDate.of(2018, 6, 4).plusDays(number), timeWindow, null,
+                    Appointment.State.RESERVED, new Reservation(new Group(number * 37))));
+        }
+
+        final GroupStatusIndex index = GroupStatusIndex.of(appointments);
+
+        assertThat(index.getGroups()).hasSize(40);
+        assertThat(index.getGroups()).isSortedAccordingTo(Comparator.comparingInt(Group::getNumber));
+    }
+}
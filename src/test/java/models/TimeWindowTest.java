@@ -0,0 +1,68 @@
+package models;
+
+import org.junit.Test;
+
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TimeWindowTest {
+    private static final LocalTime START = LocalTime.of(7, 30);
+    private static final LocalTime END = LocalTime.of(16, 40);
+
+    @Test
+    public void shouldShareInstancesOfEqualWindows() throws Exception {
+        TimeWindow timeWindow = TimeWindow.of(START, END);
+
+        assertThat(TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40))).isSameAs(timeWindow);
+        assertThat(timeWindow.getStart()).isEqualTo(START);
+        assertThat(timeWindow.getEnd()).isEqualTo(END);
+    }
+
+    @Test
+    public void shouldHaveEqualHashCodesForEqualWindows() throws Exception {
+        TimeWindow timeWindow = TimeWindow.of(START, END);
+        TimeWindow colliding = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 41));
+        TimeWindow again = TimeWindow.of(START, END);
+
+        assertThat(colliding).isNotEqualTo(timeWindow);
+        assertThat(again).isEqualTo(timeWindow);
+        assertThat(again.hashCode()).isEqualTo(timeWindow.hashCode());
+    }
+
+    @Test
+    public void shouldRejectAnEndBeforeTheStart() {
+        assertThatThrownBy(() -> TimeWindow.of(END, START)).isInstanceOf(InvalidTimeWindowException.class);
+    }
+
+    @Test
+    public void shouldContainTimesStrictlyWithinTheWindow() throws Exception {
+        TimeWindow timeWindow = TimeWindow.of(START, END);
+
+        assertThat(timeWindow.contains(LocalTime.of(10, 0))).isTrue();
+        assertThat(timeWindow.contains(START)).isFalse();
+        assertThat(timeWindow.contains(END)).isFalse();
+        assertThat(TimeWindow.of(START).contains(LocalTime.of(23, 0))).isTrue();
+    }
+
+    @Test
+    public void shouldKeepTheSecondsOfTheTimes() throws Exception {
+        TimeWindow timeWindow = TimeWindow.of(START, END);
+
+        assertThat(timeWindow.contains(LocalTime.of(7, 30, 30))).isTrue();
+        assertThat(timeWindow.contains(LocalTime.of(16, 39, 59))).isTrue();
+        assertThat(TimeWindow.of(LocalTime.of(7, 30, 15), END)).isNotEqualTo(timeWindow);
+        assertThat(TimeWindow.of(LocalTime.of(7, 30, 15)).getStart()).isEqualTo(LocalTime.of(7, 30, 15));
+    }
+
+    @Test
+    public void shouldDetectOverlappingWindows() throws Exception {
+        TimeWindow timeWindow = TimeWindow.of(START, END);
+
+        assertThat(timeWindow.overlaps(TimeWindow.of(LocalTime.of(16, 0), LocalTime.of(18, 0)))).isTrue();
+        assertThat(timeWindow.overlaps(TimeWindow.of(END, LocalTime.of(18, 0)))).isFalse();
+        assertThat(timeWindow.overlaps(TimeWindow.of(LocalTime.of(12, 0)))).isTrue();
+        assertThat(TimeWindow.of(LocalTime.of(6, 0)).overlaps(timeWindow)).isTrue();
+    }
+}
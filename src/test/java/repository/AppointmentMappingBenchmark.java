@@ -0,0 +1,162 @@
+package repository;
+
+import models.*;
+
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares mapping the rows of the appointment query by looking up every column by name
+ * with the AppointmentMapper, which resolves the column indices once per query
+ *
+ * Maps ROWS joined rows of an embedded H2 database, a third each free, reserved and booked.
+ * Lives in the repository package as the mapper is package-private. Run the main method, e.g. from the IDE.
+ * The numbers are printed to stdout.
+ */
+public class AppointmentMappingBenchmark {
+    private static final int ROWS = 100_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    private static final String QUERY = "SELECT A.Date, A.Activated, A.StartTime, A.EndTime, A.Note, A.Version,\n" +
+            "R.Groups, B.StartTime AS BookStart, B.EndTime AS BookEnd, B.Room, B.Version AS BookingVersion\n" +
+            "FROM Appointment A\n" +
+            "LEFT JOIN Reservation R on A.Date = R.Appointment\n" +
+            "LEFT JOIN Booking B on R.Groups = B.Reservation\n" +
+            "ORDER BY A.Date;";
+
+    private interface Mapping {
+        List<Appointment> map(ResultSet results) throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        DBRepository repository = TestDatabase.create();
+
+        try (PooledConnection pooledConnection = repository.getConnectionPool().acquire()) {
+            Connection connection = pooledConnection.getConnection();
+            insertRows(connection);
+
+            Mapping byName = AppointmentMappingBenchmark::mapByName;
+            Mapping byIndex = results -> AppointmentMapper.forSchedule(results, Group::new).mapAll(results);
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                measure(connection, byName);
+                measure(connection, byIndex);
+            }
+
+            report("By column name", measure(connection, byName));
+            report("By column index", measure(connection, byIndex));
+        }
+    }
+
+    private static long measure(Connection connection, Mapping mapping) throws Exception {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < ROUNDS; i++) {
+            try (Statement statement = connection.createStatement()) {
+                statement.setFetchSize(200);
+
+                try (ResultSet results = statement.executeQuery(QUERY)) {
+                    if (mapping.map(results).size() != ROWS) throw new IllegalStateException("Rows missing");
+                }
+            }
+        }
+
+        return (System.nanoTime() - start) / ROUNDS;
+    }
+
+    private static void report(String variant, long nanosPerRound) {
+        double millis = nanosPerRound / 1_000_000.0;
+        System.out.printf("%-16s %8.2f ms per %d rows, %10.0f rows/s%n",
+                variant, millis, ROWS, ROWS / (millis / 1000.0));
+    }
+
+    /**
+     * The mapping as done before the AppointmentMapper, looking up every column by name
+     */
+    private static List<Appointment> mapByName(ResultSet results) throws Exception {
+        List<Appointment> appointments = new ArrayList<>();
+
+        while (results.next()) {
+            LocalDate date = results.getDate("Date").toLocalDate();
+            boolean active = results.getBoolean("Activated");
+            TimeWindow timeWindow = TimeWindow.of(results.getTime("StartTime").toLocalTime(),
+                    results.getTime("EndTime").toLocalTime());
+            String note = results.getString("Note");
+            int version = results.getInt("Version");
+
+            int groupNo = results.getInt("Groups");
+            boolean hasReservation = !results.wasNull();
+
+            Time bookStart = results.getTime("BookStart");
+            Appointment appointment;
+
+            if (!active) {
+                appointment = new Appointment(date, timeWindow, note, Appointment.State.DEACTIVATED);
+            } else if (!hasReservation) {
+                appointment = new Appointment(date, timeWindow, note, Appointment.State.FREE);
+            } else if (bookStart == null) {
+                appointment = new Appointment(date, timeWindow, note, Appointment.State.RESERVED,
+                        new Reservation(new Group(groupNo)));
+            } else {
+                Time bookEnd = results.getTime("BookEnd");
+                TimeWindow bookingWindow = TimeWindow.of(bookStart.toLocalTime(),
+                        bookEnd == null ? null : bookEnd.toLocalTime());
+                Booking booking = new Booking(new Group(groupNo), bookingWindow, results.getString("Room"));
+                booking.setVersion(results.getInt("BookingVersion"));
+                appointment = new Appointment(date, timeWindow, note, Appointment.State.BOOKED, booking);
+            }
+
+            appointment.setVersion(version);
+            appointments.add(appointment);
+        }
+
+        return appointments;
+    }
+
+    private static void insertRows(Connection connection) throws SQLException {
+        LocalDate first = LocalDate.of(2000, 1, 1);
+        Time start = Time.valueOf(LocalTime.of(7, 30));
+        Time end = Time.valueOf(LocalTime.of(16, 40));
+
+        try (PreparedStatement appointment = connection.prepareStatement(
+                "INSERT INTO Appointment (Date, Activated, StartTime, EndTime, Note) VALUES (?, 1, ?, ?, ?)");
+             PreparedStatement group = connection.prepareStatement("INSERT INTO Groups (GroupNumber) VALUES (?)");
+             PreparedStatement reservation = connection.prepareStatement(
+                     "INSERT INTO Reservation (Groups, Appointment) VALUES (?, ?)");
+             PreparedStatement booking = connection.prepareStatement(
+                     "INSERT INTO Booking (Reservation, StartTime, EndTime, Room) VALUES (?, ?, NULL, 'Z 211')")) {
+            for (int i = 0; i < ROWS; i++) {
+                Date date = Date.valueOf(first.plusDays(i));
+
+                appointment.setDate(1, date);
+                appointment.setTime(2, start);
+                appointment.setTime(3, end);
+                appointment.setString(4, "Note " + i);
+                appointment.addBatch();
+
+                if (i % 3 == 0) continue;
+
+                group.setInt(1, i);
+                group.addBatch();
+                reservation.setInt(1, i);
+                reservation.setDate(2, date);
+                reservation.addBatch();
+
+                if (i % 3 == 1) continue;
+
+                booking.setInt(1, i);
+                booking.setTime(2, Time.valueOf(LocalTime.of(10, 0)));
+                booking.addBatch();
+            }
+
+            appointment.executeBatch();
+            group.executeBatch();
+            reservation.executeBatch();
+            booking.executeBatch();
+        }
+    }
+}
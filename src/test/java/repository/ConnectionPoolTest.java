@@ -0,0 +1,158 @@
+package repository;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ConnectionPoolTest {
+    private Properties properties;
+    private ConnectionPool pool;
+
+    @Before
+    public void setUp() throws Exception {
+        properties = TestDatabase.properties();
+        properties.setProperty("DB_POOL_MIN_SIZE", "1");
+        properties.setProperty("DB_POOL_MAX_SIZE", "2");
+        properties.setProperty("DB_POOL_CHECKOUT_TIMEOUT", "100");
+        properties.setProperty("DB_POOL_IDLE_TIMEOUT", "0");
+
+        Class.forName(properties.getProperty("DB_DRIVER_CLASS"));
+    }
+
+    @After
+    public void tearDown() {
+        if (pool != null) pool.close();
+    }
+
+    @Test
+    public void shouldReplaceAnIdleConnectionWhichFailsValidationOnCheckout() throws Exception {
+        pool = new ConnectionPool(properties);
+
+        PooledConnection broken;
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            broken = pooledConnection;
+        }
+        broken.getConnection().close();
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            assertThat(pooledConnection).isNotSameAs(broken);
+            assertThat(pooledConnection.getConnection().isValid(1)).isTrue();
+        }
+
+        assertThat(pool.getValidationFailures()).isEqualTo(1);
+        assertThat(pool.getOpenConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCloseIdleConnectionsDownToTheMinimumSize() throws Exception {
+        properties.setProperty("DB_POOL_IDLE_TIMEOUT", "300");
+        pool = new ConnectionPool(properties);
+
+        PooledConnection first = pool.acquire();
+        PooledConnection second = pool.acquire();
+        first.close();
+        second.close();
+
+        pool.evictIdleConnections();
+        assertThat(pool.getEvictions()).isEqualTo(0);
+        assertThat(pool.getOpenConnections()).isEqualTo(2);
+
+        Thread.sleep(400);
+        pool.evictIdleConnections();
+
+        assertThat(pool.getEvictions()).isEqualTo(1);
+        assertThat(pool.getOpenConnections()).isEqualTo(1);
+        assertThat(pool.getIdleConnections()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotOpenMoreThanTheMaximumNumberOfConnections() throws Exception {
+        pool = new ConnectionPool(properties);
+
+        try (PooledConnection first = pool.acquire(); PooledConnection second = pool.acquire()) {
+            assertThat(second).isNotSameAs(first);
+
+            assertCheckoutTimesOut();
+            assertThat(pool.getCheckoutTimeouts()).isEqualTo(1);
+            assertThat(pool.getOpenConnections()).isEqualTo(2);
+            assertThat(pool.getActiveConnections()).isEqualTo(2);
+        }
+
+        assertThat(pool.getCreatedConnections()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldWaitForAReturnedConnectionUntilTheCheckoutTimeout() throws Exception {
+        properties.setProperty("DB_POOL_CHECKOUT_TIMEOUT", "5000");
+        pool = new ConnectionPool(properties);
+
+        PooledConnection first = pool.acquire();
+        PooledConnection second = pool.acquire();
+        CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(100);
+                second.close();
+            } catch (InterruptedException | ResourceLeakException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        try (PooledConnection third = pool.acquire()) {
+            assertThat(third).isSameAs(second);
+            assertThat(pool.getCheckoutTimeouts()).isEqualTo(0);
+        } finally {
+            first.close();
+        }
+    }
+
+    @Test
+    public void shouldReturnAConnectionOnlyOnceWhenItIsClosedTwice() throws Exception {
+        pool = new ConnectionPool(properties);
+
+        PooledConnection pooledConnection = pool.acquire();
+        pooledConnection.close();
+        pooledConnection.close();
+
+        assertThat(pool.getActiveConnections()).isEqualTo(0);
+        assertThat(pool.getIdleConnections()).isEqualTo(1);
+        assertThat(pool.getLeakDetector().getOpenCheckouts()).isEqualTo(0);
+
+        try (PooledConnection first = pool.acquire(); PooledConnection second = pool.acquire()) {
+            assertThat(second).isNotSameAs(first);
+
+            assertCheckoutTimesOut();
+            assertThat(pool.getOpenConnections()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldCloseTheConnectionsWhenThePoolIsClosed() throws Exception {
+        pool = new ConnectionPool(properties);
+        PooledConnection checkedOut = pool.acquire();
+        PooledConnection idle = pool.acquire();
+        idle.close();
+
+        pool.close();
+        checkedOut.close();
+
+        assertThat(pool.getOpenConnections()).isEqualTo(0);
+        assertThat(checkedOut.getConnection().isClosed()).isTrue();
+        assertThat(idle.getConnection().isClosed()).isTrue();
+    }
+
+    private void assertCheckoutTimesOut() {
+        try {
+            pool.acquire();
+            fail("Expected the checkout to time out");
+        } catch (SQLException expected) {
+            assertThat(expected.getMessage()).contains("Timed out");
+        }
+    }
+}
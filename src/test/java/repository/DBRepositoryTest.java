@@ -0,0 +1,370 @@
+package repository;
+
+import models.Appointment;
+import models.Group;
+import models.OperationNotAllowedException;
+import models.Reservation;
+import models.TimeWindow;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static testsupport.TestSupport.setStaticValue;
+
+public class DBRepositoryTest {
+    private static final LocalDate MONDAY = LocalDate.of(2018, 6, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2018, 6, 5);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+
+    private DBRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = TestDatabase.create();
+        setStaticValue(Repositories.class, "instance", repository);
+
+        TimeWindow timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+        repository.insertGroups(1, 2);
+        repository.insertAppointments(Arrays.asList(
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE),
+                new Appointment(TUESDAY, timeWindow, null, Appointment.State.RESERVED, new Reservation(new Group(1)))));
+    }
+
+    @Test
+    public void shouldBookAFreeAppointmentAndCancelTheReservationOfTheGroup() throws Exception {
+        Appointment booked = repository.book(MONDAY, new Group(1), TEN);
+
+        assertThat(booked.getState()).isEqualTo(Appointment.State.BOOKED);
+        assertThat(repository.getAppointment(MONDAY).get().getBooking().getGroup()).isEqualTo(new Group(1));
+        assertThat(repository.getAppointment(TUESDAY).get().getState()).isEqualTo(Appointment.State.FREE);
+    }
+
+    @Test
+    public void shouldBookTheOwnReservation() throws Exception {
+        repository.book(TUESDAY, new Group(1), TEN);
+
+        assertThat(repository.getAppointment(TUESDAY).get().getState()).isEqualTo(Appointment.State.BOOKED);
+    }
+
+    @Test
+    public void shouldRejectAnAppointmentReservedByAnotherGroup() throws Exception {
+        long version = repository.getScheduleVersion();
+
+        assertRejected(() -> repository.book(TUESDAY, new Group(2), TEN), OperationNotAllowedException.Reason.TAKEN);
+
+        assertThat(repository.getAppointment(TUESDAY).get().getReservation().getGroup()).isEqualTo(new Group(1));
+        assertThat(repository.getScheduleVersion()).isEqualTo(version);
+    }
+
+    @Test
+    public void shouldRejectAStartTimeOutsideOfTheTimeWindow() throws Exception {
+        assertRejected(() -> repository.book(MONDAY, new Group(2), LocalTime.of(17, 0)),
+                OperationNotAllowedException.Reason.OUTSIDE_TIME_WINDOW);
+    }
+
+    @Test
+    public void shouldRejectASecondBookingOfAGroup() throws Exception {
+        repository.book(MONDAY, new Group(2), TEN);
+
+        assertRejected(() -> repository.book(TUESDAY, new Group(2), TEN),
+                OperationNotAllowedException.Reason.TAKEN);
+        repository.getAppointment(TUESDAY).get().setFree();
+        assertRejected(() -> repository.book(TUESDAY, new Group(2), TEN),
+                OperationNotAllowedException.Reason.GROUP_HAS_APPOINTMENT);
+    }
+
+    @Test
+    public void shouldLetOnlyOneOfTwoRacingGroupsBookAnAppointment() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        List<Callable<Boolean>> bookings = Arrays.asList(
+                () -> tryBooking(MONDAY, new Group(1)),
+                () -> tryBooking(MONDAY, new Group(2)));
+
+        try {
+            long successes = 0;
+            for (Future<Boolean> booking : executor.invokeAll(bookings)) {
+                if (booking.get()) successes++;
+            }
+
+            assertThat(successes).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void shouldRejectAnUpdateOfAnOutdatedAppointment() throws Exception {
+        Appointment first = repository.getAppointment(MONDAY).get();
+        Appointment second = repository.getAppointment(MONDAY).get();
+
+        first.setNote("First");
+
+        try {
+            second.setNote("Second");
+            fail("Expected a ConcurrentUpdateException");
+        } catch (ConcurrentUpdateException expected) {
+            Appointment current = repository.getAppointment(MONDAY).get();
+
+            assertThat(current.getNote()).isEqualTo("First");
+            assertThat(current.getVersion()).isEqualTo(first.getVersion()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void shouldRejectAnUpdateOfAnAppointmentBookedInTheMeantime() throws Exception {
+        Appointment outdated = repository.getAppointment(TUESDAY).get();
+
+        repository.book(TUESDAY, new Group(1), TEN);
+
+        try {
+            outdated.setFree();
+            fail("Expected a ConcurrentUpdateException");
+        } catch (ConcurrentUpdateException expected) {
+            assertThat(repository.getAppointment(TUESDAY).get().getState()).isEqualTo(Appointment.State.BOOKED);
+        }
+    }
+
+    @Test
+    public void shouldRejectAnUpdateOfAnOutdatedBooking() throws Exception {
+        repository.book(MONDAY, new Group(1), TEN);
+        Appointment first = repository.getAppointment(MONDAY).get();
+        Appointment second = repository.getAppointment(MONDAY).get();
+
+        first.getBooking().updateRoom("A 101");
+
+        try {
+            second.getBooking().updateRoom("B 202");
+            fail("Expected a ConcurrentUpdateException");
+        } catch (ConcurrentUpdateException expected) {
+            assertThat(repository.getAppointment(MONDAY).get().getBooking().getRoom()).isEqualTo("A 101");
+        }
+    }
+
+    @Test
+    public void shouldReadARangeOfAppointmentsSpanningSeveralPages() throws Exception {
+        LocalDate first = LocalDate.of(2019, 1, 1);
+        TimeWindow timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+        List<Appointment> appointments = new ArrayList<>();
+        for (int day = 0; day < 450; day++) {
+            appointments.add(new Appointment(first.plusDays(day), timeWindow, null, Appointment.State.FREE));
+        }
+        repository.insertAppointments(appointments);
+
+        List<Appointment> range = repository.getAppointments(first.plusDays(10), first.plusDays(439));
+
+        assertThat(range).hasSize(430);
+        assertThat(range.get(0).getDate()).isEqualTo(first.plusDays(10));
+        assertThat(range.get(429).getDate()).isEqualTo(first.plusDays(439));
+    }
+
+    @Test
+    public void shouldOnlyDeleteTheAppointmentsWithinTheRange() throws Exception {
+        repository.deleteAppointments(TUESDAY, TUESDAY);
+
+        assertThat(repository.getAppointment(MONDAY).isPresent()).isTrue();
+        assertThat(repository.getAppointment(TUESDAY).isPresent()).isFalse();
+        assertThat(repository.findScheduleDate(TUESDAY).get()).isEqualTo(MONDAY);
+    }
+
+    @Test
+    public void shouldKeepTheReplacedAppointmentsIfTheNewOnesCantBeInserted() throws Exception {
+        TimeWindow timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+        List<Appointment> appointments = Arrays.asList(
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE),
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE));
+
+        try {
+            repository.replaceAppointments(MONDAY, TUESDAY, appointments);
+            fail("Expected an SQLException");
+        } catch (SQLException expected) {
+            assertThat(repository.getAppointment(TUESDAY).get().getReservation().getGroup()).isEqualTo(new Group(1));
+        }
+
+        repository.replaceAppointments(MONDAY, TUESDAY, appointments.subList(0, 1));
+
+        assertThat(repository.getAppointment(TUESDAY).isPresent()).isFalse();
+        assertThat(repository.getAppointment(MONDAY).get().getState()).isEqualTo(Appointment.State.FREE);
+    }
+
+    @Test
+    public void shouldDeleteTheBookingsOfReplacedAppointments() throws Exception {
+        repository.book(TUESDAY, new Group(1), TEN);
+        TimeWindow timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+
+        repository.replaceAppointments(MONDAY, TUESDAY, Arrays.asList(
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE),
+                new Appointment(TUESDAY, timeWindow, null, Appointment.State.FREE)));
+
+        try (PooledConnection pooledConnection = repository.getConnectionPool().acquire();
+             Statement statement = pooledConnection.getConnection().createStatement();
+             ResultSet results = statement.executeQuery("SELECT COUNT(*) FROM Booking")) {
+            results.next();
+            assertThat(results.getInt(1)).isEqualTo(0);
+        }
+
+        assertThat(repository.book(MONDAY, new Group(1), TEN).getState()).isEqualTo(Appointment.State.BOOKED);
+    }
+
+    @Test
+    public void shouldOnlyShowTheOwnReservationToAStudent() throws Exception {
+        List<Appointment> ofOtherGroup = repository.getStudentAppointments(MONDAY, TUESDAY, 2);
+        List<Appointment> ofOwnGroup = repository.getStudentAppointments(MONDAY, TUESDAY, 1);
+
+        assertThat(ofOtherGroup.get(1).getState()).isEqualTo(Appointment.State.RESERVED);
+        assertThat(ofOtherGroup.get(1).isTakenByOtherGroup()).isTrue();
+        assertThat(ofOtherGroup.get(1).getGroup()).isNull();
+        assertThat(ofOwnGroup.get(1).getReservation().getGroup()).isEqualTo(new Group(1));
+    }
+
+    @Test
+    public void shouldOnlyShowTheOwnBookingAndActivatedAppointmentsToAStudent() throws Exception {
+        repository.book(TUESDAY, new Group(1), TEN);
+        Appointment monday = repository.getAppointment(MONDAY).get();
+        monday.deactivate();
+
+        List<Appointment> ofOtherGroup = repository.getStudentAppointments(MONDAY, TUESDAY, 2);
+        List<Appointment> ofOwnGroup = repository.getStudentAppointments(MONDAY, TUESDAY, 1);
+
+        assertThat(ofOtherGroup).hasSize(1);
+        assertThat(ofOtherGroup.get(0).getState()).isEqualTo(Appointment.State.BOOKED);
+        assertThat(ofOtherGroup.get(0).getBooking()).isNull();
+        assertThat(ofOwnGroup.get(0).getBooking().getTimeWindow().getStart()).isEqualTo(TEN);
+    }
+
+    @Test
+    public void shouldShareOneInstancePerGroup() throws Exception {
+        repository.book(MONDAY, new Group(2), TEN);
+
+        Group reserving = repository.getAppointment(TUESDAY).get().getGroup();
+
+        assertThat(repository.getGroups().get(0)).isSameAs(reserving);
+        assertThat(repository.getGroupStatuses().keySet()).contains(reserving);
+        assertThat(repository.getAppointment(MONDAY).get().getGroup()).isSameAs(repository.getGroups().get(1));
+    }
+
+    @Test
+    public void shouldCollapseTheJoinedRowsOfAnAppointmentIntoOne() throws Exception {
+        try (PooledConnection pooledConnection = repository.getConnectionPool().acquire();
+             Statement statement = pooledConnection.getConnection().createStatement()) {
+            statement.execute("DROP INDEX UX_Reservation_Appointment");
+            statement.execute("INSERT INTO Reservation (Groups, Appointment) VALUES (2, '2018-06-05')");
+            statement.execute("INSERT INTO Booking (Reservation, StartTime) VALUES (2, '10:00:00')");
+        }
+
+        List<Appointment> appointments = repository.getAppointments(MONDAY, TUESDAY);
+
+        assertThat(appointments).hasSize(2);
+        assertThat(appointments.get(1).getState()).isEqualTo(Appointment.State.BOOKED);
+        assertThat(appointments.get(1).getGroup()).isEqualTo(new Group(2));
+    }
+
+    @Test
+    public void shouldCloseTheLeastRecentlyUsedStatementWhenTheCacheIsFull() throws Exception {
+        Properties properties = TestDatabase.properties();
+        properties.setProperty("DB_POOL_MAX_SIZE", "1");
+        properties.setProperty("DB_STATEMENT_CACHE_SIZE", "2");
+        ConnectionPool pool = TestDatabase.create(properties).getConnectionPool();
+        StatementCacheStatistics statistics = pool.getStatementCacheStatistics();
+        long hits = statistics.getHits();
+        long misses = statistics.getMisses();
+        long evictions = statistics.getEvictions();
+
+        try (PooledConnection pooledConnection = pool.acquire()) {
+            PreparedStatement appointments = pooledConnection.prepare("SELECT * FROM Appointment;");
+            PreparedStatement groups = pooledConnection.prepare("SELECT * FROM Groups;");
+
+            assertThat(pooledConnection.prepare("SELECT * FROM Appointment;")).isSameAs(appointments);
+
+            pooledConnection.prepare("SELECT * FROM Booking;");
+
+            assertThat(groups.isClosed()).isTrue();
+            assertThat(appointments.isClosed()).isFalse();
+        }
+
+        assertThat(statistics.getHits() - hits).isEqualTo(1);
+        assertThat(statistics.getMisses() - misses).isEqualTo(3);
+        assertThat(statistics.getEvictions() - evictions).isEqualTo(1);
+        assertThat(pool.getLeakDetector().getOpenStatements()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldReturnAllConnectionsWithoutLeakingResultSets() throws Exception {
+        repository.book(MONDAY, new Group(2), TEN);
+        repository.getAppointments(MONDAY, TUESDAY);
+        repository.getGroupStatuses();
+
+        ResourceLeakDetector leakDetector = repository.getConnectionPool().getLeakDetector();
+
+        assertThat(leakDetector.getOpenCheckouts()).isEqualTo(0);
+        assertThat(leakDetector.getLeakedResultSets()).isEqualTo(0);
+        assertThat(leakDetector.getOpenStatements()).isGreaterThan(0);
+    }
+
+    @Test
+    public void shouldCloseAResultSetLeftOpenWhenTheConnectionIsReturned() throws Exception {
+        ResultSet results;
+
+        try (PooledConnection pooledConnection = repository.getConnectionPool().acquire()) {
+            results = pooledConnection.prepare("SELECT * FROM Appointment;").executeQuery();
+        }
+
+        assertThat(results.isClosed()).isTrue();
+        assertThat(repository.getConnectionPool().getLeakDetector().getLeakedResultSets()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReportALeakedResultSetWithItsCreationSiteInDebugMode() throws Exception {
+        Properties properties = TestDatabase.properties();
+        properties.setProperty("DB_LEAK_DETECTION", "true");
+        ConnectionPool pool = TestDatabase.create(properties).getConnectionPool();
+        PooledConnection pooledConnection = pool.acquire();
+        ResultSet results = pooledConnection.prepare("SELECT * FROM Appointment;").executeQuery();
+
+        try {
+            pooledConnection.close();
+            fail("Expected a ResourceLeakException");
+        } catch (ResourceLeakException expected) {
+            assertThat(Arrays.stream(expected.getStackTrace()).map(StackTraceElement::getMethodName).collect(toList()))
+                    .contains("shouldReportALeakedResultSetWithItsCreationSiteInDebugMode");
+        }
+
+        assertThat(results.isClosed()).isTrue();
+        assertThat(pool.getLeakDetector().getOpenCheckouts()).isEqualTo(0);
+        assertThat(pool.getLeakDetector().getOpenStatementTraces()).hasSize(pool.getLeakDetector().getOpenStatements());
+    }
+
+    private boolean tryBooking(LocalDate date, Group group) throws Exception {
+        try {
+            repository.book(date, group, TEN);
+            return true;
+        } catch (OperationNotAllowedException rejected) {
+            return false;
+        }
+    }
+
+    private static void assertRejected(Callable<?> booking, OperationNotAllowedException.Reason reason) throws Exception {
+        try {
+            booking.call();
+            fail("Expected an OperationNotAllowedException");
+        } catch (OperationNotAllowedException expected) {
+            assertThat(expected.getReason()).isEqualTo(reason);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package repository;
+
+import models.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static testsupport.TestSupport.setStaticValue;
+
+public class InMemoryRepositoryTest {
+    private static final LocalDate MONDAY = LocalDate.of(2018, 6, 4);
+    private static final LocalDate TUESDAY = LocalDate.of(2018, 6, 5);
+    private static final LocalDate WEDNESDAY = LocalDate.of(2018, 6, 6);
+    private static final LocalTime TEN = LocalTime.of(10, 0);
+
+    private InMemoryRepository repository;
+    private TimeWindow timeWindow;
+
+    @Before
+    public void setUp() throws Exception {
+        repository = new InMemoryRepository();
+        setStaticValue(Repositories.class, "instance", repository);
+
+        timeWindow = TimeWindow.of(LocalTime.of(7, 30), LocalTime.of(16, 40));
+        repository.insertGroups(1, 2);
+        repository.insertAppointments(Arrays.asList(
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE),
+                new Appointment(TUESDAY, timeWindow, null, Appointment.State.RESERVED, new Reservation(new Group(1)))));
+    }
+
+    @Test
+    public void shouldBookAFreeAppointmentAndCancelTheReservationOfTheGroup() throws Exception {
+        long sequence = repository.getLatestChangeSequence();
+
+        Appointment booked = repository.book(MONDAY, new Group(1), TEN);
+
+        assertThat(booked.getVersion()).isEqualTo(1);
+        assertThat(repository.getAppointment(MONDAY).get().getBooking().getGroup()).isEqualTo(new Group(1));
+        assertThat(repository.getAppointment(TUESDAY).get().getState()).isEqualTo(Appointment.State.FREE);
+        assertThat(repository.getGroupStatuses().get(new Group(1))).isEqualTo(GroupStatus.BOOKED);
+        assertThat(repository.getChangesAfter(sequence)).hasSize(2);
+    }
+
+    @Test
+    public void shouldRejectAnAppointmentReservedByAnotherGroup() throws Exception {
+        long version = repository.getScheduleVersion();
+
+        try {
+            repository.book(TUESDAY, new Group(2), TEN);
+            fail("Expected an OperationNotAllowedException");
+        } catch (OperationNotAllowedException expected) {
+            assertThat(expected.getReason()).isEqualTo(OperationNotAllowedException.Reason.TAKEN);
+        }
+        try {
+            repository.book(MONDAY, new Group(2), LocalTime.of(17, 0));
+            fail("Expected an OperationNotAllowedException");
+        } catch (OperationNotAllowedException expected) {
+            assertThat(expected.getReason()).isEqualTo(OperationNotAllowedException.Reason.OUTSIDE_TIME_WINDOW);
+        }
+        assertThat(repository.getScheduleVersion()).isEqualTo(version);
+    }
+
+    @Test
+    public void shouldRejectAnUpdateOfAnOutdatedAppointment() throws Exception {
+        Appointment first = repository.getAppointment(MONDAY).get();
+        Appointment second = repository.getAppointment(MONDAY).get();
+
+        first.setNote("First");
+
+        try {
+            second.setNote("Second");
+            fail("Expected a ConcurrentUpdateException");
+        } catch (ConcurrentUpdateException expected) {
+            assertThat(repository.getAppointment(MONDAY).get().getNote()).isEqualTo("First");
+        }
+    }
+
+    @Test
+    public void shouldWriteNothingIfAnAppointmentOfTheListCantBeInserted() throws Exception {
+        List<Appointment> appointments = Arrays.asList(
+                new Appointment(WEDNESDAY, timeWindow, null, Appointment.State.FREE),
+                new Appointment(MONDAY, timeWindow, null, Appointment.State.FREE));
+
+        try {
+            repository.insertAppointments(appointments);
+            fail("Expected an SQLException");
+        } catch (SQLException expected) {
+            assertThat(repository.getAppointment(WEDNESDAY).isPresent()).isFalse();
+        }
+    }
+
+    @Test
+    public void shouldReplaceTheAppointmentsOfARangeAtOnce() throws Exception {
+        List<Appointment> appointments = Arrays.asList(
+                new Appointment(TUESDAY, timeWindow, null, Appointment.State.RESERVED, new Reservation(new Group(2))),
+                new Appointment(WEDNESDAY, timeWindow, null, Appointment.State.FREE));
+
+        repository.replaceAppointments(MONDAY, TUESDAY, appointments);
+
+        assertThat(repository.getAppointment(MONDAY).isPresent()).isFalse();
+        assertThat(repository.findAppointmentForGroup(1).isPresent()).isFalse();
+        assertThat(repository.findAppointmentForGroup(2).get().getDate()).isEqualTo(TUESDAY);
+        assertThat(repository.getAppointment(WEDNESDAY).isPresent()).isTrue();
+    }
+
+    @Test
+    public void shouldRejectAReservationOfAMissingGroup() throws Exception {
+        Appointment appointment = new Appointment(WEDNESDAY, timeWindow, null, Appointment.State.RESERVED,
+                new Reservation(new Group(3)));
+
+        try {
+            repository.insertAppointments(Collections.singletonList(appointment));
+            fail("Expected an SQLException");
+        } catch (SQLException expected) {
+            assertThat(repository.findScheduleDate(WEDNESDAY).get()).isEqualTo(TUESDAY);
+        }
+    }
+
+    @Test
+    public void shouldReserveAndCancelThroughTheModels() throws Exception {
+        Appointment monday = Appointment.get(MONDAY).get();
+
+        monday.reserve(new Group(2));
+        assertThat(repository.findAppointmentForGroup(2).get().getDate()).isEqualTo(MONDAY);
+
+        monday.cancelReservation();
+        assertThat(repository.findAppointmentForGroup(2).isPresent()).isFalse();
+        assertThat(repository.getAppointment(MONDAY).get().getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldOnlyShowTheOwnReservationToAStudent() throws Exception {
+        List<Appointment> ofOtherGroup = repository.getStudentAppointments(MONDAY, TUESDAY, 2);
+        List<Appointment> ofOwnGroup = repository.getStudentAppointments(MONDAY, TUESDAY, 1);
+
+        assertThat(ofOtherGroup.get(1).isTakenByOtherGroup()).isTrue();
+        assertThat(ofOtherGroup.get(1).getGroup()).isNull();
+        assertThat(ofOwnGroup.get(1).getReservation().getGroup()).isEqualTo(new Group(1));
+    }
+}
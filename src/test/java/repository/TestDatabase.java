@@ -0,0 +1,53 @@
+package repository;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Creates repositories backed by a fresh embedded H2 database with the schema from schema.sql
+ */
+public class TestDatabase {
+    public static DBRepository create() throws Exception {
+        return create(properties());
+    }
+
+    public static DBRepository create(Properties properties) throws Exception {
+        DBRepository repository = new DBRepository(properties);
+
+        try (PooledConnection pooledConnection = repository.getConnectionPool().acquire();
+             Statement statement = pooledConnection.getConnection().createStatement()) {
+            for (String sql : readSchema().split(";")) {
+                if (!sql.trim().isEmpty()) statement.execute(sql);
+            }
+        }
+
+        return repository;
+    }
+
+    /**
+     * Creates the configuration of a new, empty database, to which pool and cache settings can be added
+     */
+    public static Properties properties() {
+        Properties properties = new Properties();
+        properties.setProperty("DB_DRIVER_CLASS", "org.h2.Driver");
+        properties.setProperty("DB_URL", "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MSSQLServer;DB_CLOSE_DELAY=-1");
+        properties.setProperty("DB_USERNAME", "sa");
+        properties.setProperty("DB_PASSWORD", "");
+
+        return properties;
+    }
+
+    private static String readSchema() throws Exception {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                TestDatabase.class.getResourceAsStream("/schema.sql"), StandardCharsets.UTF_8))) {
+            return reader.lines()
+                    .filter(line -> !line.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+        }
+    }
+}
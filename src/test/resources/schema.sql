@@ -0,0 +1,46 @@
+-- Stand-in for the MSSQL schema, used with an embedded H2 database in MSSQLServer mode
+CREATE TABLE Groups (
+    GroupNumber INT NOT NULL PRIMARY KEY
+);
+
+CREATE TABLE Appointment (
+    Date      DATE         NOT NULL PRIMARY KEY,
+    Activated BIT          NOT NULL,
+    StartTime TIME         NOT NULL,
+    EndTime   TIME         NOT NULL,
+    Note      VARCHAR(255) NULL,
+    Version   INT          NOT NULL DEFAULT 0
+);
+
+CREATE TABLE Reservation (
+    Groups      INT  NOT NULL REFERENCES Groups (GroupNumber) ON DELETE CASCADE,
+    Appointment DATE NOT NULL REFERENCES Appointment (Date) ON DELETE CASCADE,
+    PRIMARY KEY (Groups, Appointment)
+);
+
+CREATE UNIQUE INDEX UX_Reservation_Appointment ON Reservation (Appointment);
+
+-- Booking.Reservation holds the group number of the Reservation, as joined by DBRepository, so a Booking can only be
+-- cascaded from Groups. Deleting an Appointment cascades to its Reservation but not to the Booking, which the
+-- repository deletes itself.
+CREATE TABLE Booking (
+    Reservation INT          NOT NULL PRIMARY KEY REFERENCES Groups (GroupNumber) ON DELETE CASCADE,
+    StartTime   TIME         NOT NULL,
+    EndTime     TIME         NULL,
+    Room        VARCHAR(50)  NULL,
+    Version     INT          NOT NULL DEFAULT 0
+);
+
+CREATE TABLE ScheduleVersion (
+    Id      INT    NOT NULL PRIMARY KEY,
+    Version BIGINT NOT NULL
+);
+
+INSERT INTO ScheduleVersion (Id, Version) VALUES (1, 0);
+
+CREATE TABLE ChangeLog (
+    Sequence        BIGINT      NOT NULL IDENTITY PRIMARY KEY,
+    Kind            VARCHAR(20) NOT NULL,
+    AppointmentDate DATE        NULL,
+    GroupNumber     INT         NULL
+);